@@ -0,0 +1,106 @@
+/**
+ * Comparaison du calcul groupé des cordes (boucle scalaire et API Vector) et des stratégies de recherche
+ * de l'index (arbre k-d, parcours linéaire scalaire ou vectoriel), selon la taille du catalogue.
+ * La JVM de mesure est lancée avec le module incubé {@code jdk.incubator.vector}.
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.geo.AttractionDistance;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.ChordScan;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.geo.GeoPoint;
+
+import gpsUtil.location.Attraction;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class ChordScanBenchmark {
+
+    private static final int POINTS = 256;
+
+    @Param({ "26", "256", "4096" })
+    public int attractionCount;
+
+    private List<Attraction> attractions;
+
+    private DistanceKernel kernel;
+
+    private ChordScan vector;
+
+    private final GeoPoint[] points = new GeoPoint[POINTS];
+
+    private double[] chords;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        attractions = new StubGpsUtil(attractionCount, 0, Fixtures.SEED).getAttractions();
+        kernel = DistanceKernel.of(attractions);
+        vector = ChordScan.vector().orElseThrow(() -> new IllegalStateException("jdk.incubator.vector not loaded"));
+        chords = new double[attractionCount];
+        Random random = new Random(Fixtures.SEED);
+        for (int i = 0; i < POINTS; i++) {
+            points[i] = GeoPoint.of(StubGpsUtil.randomLocation(random));
+        }
+    }
+
+    @Benchmark
+    public double[] scalarChords() {
+        kernel.chord2(points[next++ & (POINTS - 1)], ChordScan.scalar(), chords);
+        return chords;
+    }
+
+    @Benchmark
+    public double[] vectorChords() {
+        kernel.chord2(points[next++ & (POINTS - 1)], vector, chords);
+        return chords;
+    }
+
+    @Benchmark
+    public List<Attraction> withinRadius(Index state) {
+        return state.index.withinRadius(points[next++ & (POINTS - 1)], 200);
+    }
+
+    @Benchmark
+    public List<AttractionDistance> nearest(Index state) {
+        return state.index.nearestWithDistances(points[next++ & (POINTS - 1)], 5);
+    }
+
+    /** Index construit sur le même catalogue, pour chaque stratégie de recherche. */
+    @State(Scope.Thread)
+    public static class Index {
+
+        @Param({ "TREE", "SCALAR_SCAN", "VECTOR_SCAN" })
+        public AttractionIndex.Search search;
+
+        private AttractionIndex index;
+
+        @Setup
+        public void setUp(ChordScanBenchmark benchmark) {
+            index = AttractionIndex.of(benchmark.attractions, search);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Coût d'une distance sur des couples de positions aléatoires : formule de {@code RewardsService.getDistance},
+ * puis variantes du noyau précalculé (formule exacte, approximation équirectangulaire, corde, test de proximité).
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.geo.GeoPoint;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+import gpsUtil.location.Location;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private RewardsService rewardsService;
+
+    private final Location[] from = new Location[PAIRS];
+
+    private final Location[] to = new Location[PAIRS];
+
+    private final GeoPoint[] points = new GeoPoint[PAIRS];
+
+    private DistanceKernel kernel;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rewardsService = new RewardsService(new StubGpsUtil(26, 0, Fixtures.SEED), new StubRewardCentral(0));
+        Random random = new Random(Fixtures.SEED);
+        for (int i = 0; i < PAIRS; i++) {
+            from[i] = StubGpsUtil.randomLocation(random);
+            to[i] = StubGpsUtil.randomLocation(random);
+            points[i] = GeoPoint.of(from[i]);
+        }
+        kernel = DistanceKernel.of(Arrays.asList(to));
+    }
+
+    @TearDown
+    public void tearDown() {
+        rewardsService.shutdown();
+    }
+
+    @Benchmark
+    public double getDistance() {
+        int i = next++ & (PAIRS - 1);
+        return rewardsService.getDistance(from[i], to[i]);
+    }
+
+    @Benchmark
+    public double kernelMiles() {
+        int i = next++ & (PAIRS - 1);
+        return kernel.miles(points[i], i);
+    }
+
+    @Benchmark
+    public double kernelEquirectangular() {
+        int i = next++ & (PAIRS - 1);
+        return kernel.equirectangularMiles(points[i], i);
+    }
+
+    @Benchmark
+    public double kernelChord2() {
+        int i = next++ & (PAIRS - 1);
+        return kernel.chord2(points[i], i);
+    }
+
+    @Benchmark
+    public boolean kernelIsWithin() {
+        int i = next++ & (PAIRS - 1);
+        return kernel.isWithin(points[i], i, 10);
+    }
+}
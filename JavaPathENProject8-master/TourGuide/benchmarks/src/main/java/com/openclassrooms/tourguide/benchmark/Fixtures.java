@@ -0,0 +1,52 @@
+/**
+ * Données communes aux benchmarks : utilisateurs, positions et configuration sans tracking planifié.
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.location.VisitedLocation;
+
+final class Fixtures {
+
+    /** Graine commune, pour des jeux de données identiques d'une exécution à l'autre. */
+    static final long SEED = 42;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Crée un utilisateur avec un historique de positions aléatoires.
+     * @param index numéro de l'utilisateur.
+     * @param visitedLocations nombre de positions visitées.
+     * @param random générateur.
+     * @return utilisateur.
+     */
+    static User newUser(int index, int visitedLocations, Random random) {
+        User user = new User(new UUID(SEED, index), "internalUser" + index, "000", "internalUser" + index + "@tourGuide.com");
+        for (int i = 0; i < visitedLocations; i++) {
+            user.addToVisitedLocations(new VisitedLocation(user.getUserId(), StubGpsUtil.randomLocation(random), new Date()));
+        }
+        return user;
+    }
+
+    /**
+     * Configuration dont le Tracker ne se déclenche pas seul : les cycles sont lancés par le benchmark.
+     * @param mode mode d'exécution.
+     * @return configuration.
+     */
+    static TourGuideProperties properties(ExecutionMode mode) {
+        TourGuideProperties properties = new TourGuideProperties();
+        properties.getTracker().setInitialDelay(Duration.ofDays(365));
+        properties.getExecution().setMode(mode);
+        return properties;
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Coût de {@code TourGuideService.getNearbyAttractionsDetailed} pour un utilisateur déjà localisé.
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NearbyAttractionsBenchmark {
+
+    @Param({ "26", "1000" })
+    public int attractionCount;
+
+    @Param({ "0" })
+    public long rewardLatencyMicros;
+
+    private RewardsService rewardsService;
+
+    private TourGuideService tourGuideService;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        StubGpsUtil gpsUtil = new StubGpsUtil(attractionCount, 0, Fixtures.SEED);
+        rewardsService = new RewardsService(gpsUtil, new StubRewardCentral(rewardLatencyMicros));
+        InternalTestHelper.setInternalUserNumber(0);
+        tourGuideService = new TourGuideService(gpsUtil, rewardsService, Fixtures.properties(ExecutionMode.PLATFORM));
+        user = Fixtures.newUser(0, 3, new Random(Fixtures.SEED));
+        tourGuideService.addUser(user);
+    }
+
+    @TearDown
+    public void tearDown() {
+        tourGuideService.tracker.stopTracking();
+        rewardsService.shutdown();
+    }
+
+    @Benchmark
+    public List<NearbyAttractionDTO> getNearbyAttractionsDetailed() {
+        return tourGuideService.getNearbyAttractionsDetailed(user);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Coût d'une lecture du cache de points de récompense : succès sur un jeu de clés chaud,
+ * et échec suivi d'un chargement immédiat (avec éviction une fois le cache plein).
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardPointsCacheBenchmark {
+
+    private static final int KEYS = 4096;
+
+    private static final int MISS_CACHE_SIZE = 10_000;
+
+    private final UUID[] attractionIds = new UUID[KEYS];
+
+    private final UUID[] userIds = new UUID[KEYS];
+
+    private RewardPointsCache warmCache;
+
+    private RewardPointsCache coldCache;
+
+    @Setup
+    public void setUp() {
+        warmCache = new RewardPointsCache(KEYS * 2, Duration.ofHours(1));
+        coldCache = new RewardPointsCache(MISS_CACHE_SIZE, Duration.ofHours(1));
+        for (int i = 0; i < KEYS; i++) {
+            attractionIds[i] = new UUID(Fixtures.SEED, i);
+            userIds[i] = new UUID(i, Fixtures.SEED);
+            warmCache.get(attractionIds[i], userIds[i], (a, u) -> 1);
+        }
+    }
+
+    /** Compteur propre à chaque thread, pour répartir les lectures sur les clés. */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private long next;
+
+        int nextIndex() {
+            return (int) (next++ & (KEYS - 1));
+        }
+
+        long nextKey() {
+            return next++;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int hit(Cursor cursor) {
+        int i = cursor.nextIndex();
+        return warmCache.get(attractionIds[i], userIds[i], (a, u) -> 1);
+    }
+
+    @Benchmark
+    public int missAndLoad(Cursor cursor) {
+        UUID attractionId = new UUID(cursor.nextKey(), 0);
+        return coldCache.get(attractionId, userIds[0], (a, u) -> 1);
+    }
+}
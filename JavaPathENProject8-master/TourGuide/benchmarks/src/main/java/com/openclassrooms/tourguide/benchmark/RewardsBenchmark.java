@@ -0,0 +1,114 @@
+/**
+ * Coût de {@code RewardsService.calculateRewards} pour un utilisateur, RewardCentral étant remplacé
+ * par un bouchon à latence configurable.
+ * {@code fresh} évalue tout l'historique d'un utilisateur sans récompense ; {@code freshFullScan} fait de même
+ * en testant chaque position contre tout le catalogue, sans le préfiltre de l'index, pour mesurer son gain ;
+ * {@code noNewLocations} mesure un appel répété sans nouvelle position, cas courant du Tracker.
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserReward;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RewardsBenchmark {
+
+    @Param({ "26", "1000" })
+    public int attractionCount;
+
+    @Param({ "3", "100" })
+    public int visitedLocations;
+
+    @Param({ "10", "1000" })
+    public int proximityBuffer;
+
+    @Param({ "0" })
+    public long rewardLatencyMicros;
+
+    private RewardsService rewardsService;
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        rewardsService = new RewardsService(new StubGpsUtil(attractionCount, 0, Fixtures.SEED),
+                new StubRewardCentral(rewardLatencyMicros));
+        rewardsService.setProximityBuffer(proximityBuffer);
+        user = Fixtures.newUser(0, visitedLocations, new Random(Fixtures.SEED));
+    }
+
+    /** Remet l'utilisateur à zéro avant chaque appel de {@link #fresh()}. */
+    @State(Scope.Thread)
+    public static class FreshUser {
+
+        private User user;
+
+        @Setup(Level.Invocation)
+        public void reset(RewardsBenchmark benchmark) {
+            user = benchmark.user;
+            user.getUserRewards().clear();
+            user.resetRewardWatermark();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        rewardsService.shutdown();
+    }
+
+    @Benchmark
+    public int fresh(FreshUser fresh) {
+        rewardsService.calculateRewards(fresh.user);
+        return fresh.user.getUserRewards().size();
+    }
+
+    @Benchmark
+    public int freshFullScan(FreshUser fresh) {
+        User user = fresh.user;
+        for (VisitedLocation visitedLocation : user.getVisitedLocations()) {
+            for (Attraction attraction : rewardsService.getAttractionIndex().attractions()) {
+                if (rewardsService.isWithinAttractionProximity(attraction, visitedLocation.location)
+                        && user.getUserRewards().stream()
+                                .noneMatch(r -> r.attraction.attractionName.equals(attraction.attractionName))) {
+                    user.addUserReward(new UserReward(visitedLocation, attraction,
+                            rewardsService.getRewardPoints(attraction, user)));
+                }
+            }
+        }
+        return user.getUserRewards().size();
+    }
+
+    @Benchmark
+    public int noNewLocations() {
+        rewardsService.calculateRewards(user);
+        return user.getUserRewards().size();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Durée d'un cycle complet du Tracker (localisation puis récompenses pour tous les utilisateurs),
+ * gpsUtil et RewardCentral étant remplacés par des bouchons à latence configurable.
+ */
+package com.openclassrooms.tourguide.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.tourguide.benchmark.stub.StubGpsUtil;
+import com.openclassrooms.tourguide.benchmark.stub.StubRewardCentral;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrackerBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int userCount;
+
+    @Param({ "0", "1000" })
+    public long gpsLatencyMicros;
+
+    @Param({ "0" })
+    public long rewardLatencyMicros;
+
+    @Param({ "PLATFORM", "VIRTUAL" })
+    public ExecutionMode mode;
+
+    private RewardsService rewardsService;
+
+    private TourGuideService tourGuideService;
+
+    @Setup
+    public void setUp() {
+        StubGpsUtil gpsUtil = new StubGpsUtil(26, gpsLatencyMicros, Fixtures.SEED);
+        rewardsService = new RewardsService(gpsUtil, new StubRewardCentral(rewardLatencyMicros));
+        InternalTestHelper.setInternalUserNumber(userCount);
+        tourGuideService = new TourGuideService(gpsUtil, rewardsService, Fixtures.properties(mode));
+    }
+
+    @TearDown
+    public void tearDown() {
+        tourGuideService.tracker.stopTracking();
+        rewardsService.shutdown();
+    }
+
+    @Benchmark
+    public int trackingCycle() {
+        tourGuideService.tracker.run();
+        return tourGuideService.tracker.getCarryOverSize();
+    }
+}
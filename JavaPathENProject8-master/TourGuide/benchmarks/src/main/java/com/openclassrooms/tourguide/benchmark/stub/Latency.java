@@ -0,0 +1,27 @@
+/**
+ * Latence simulée des services externes dans les bouchons de benchmark.
+ */
+package com.openclassrooms.tourguide.benchmark.stub;
+
+import java.util.concurrent.locks.LockSupport;
+
+final class Latency {
+
+    private Latency() {
+    }
+
+    /**
+     * Suspend le thread courant pendant la latence demandée ; aucune attente si elle est nulle.
+     * @param micros latence en microsecondes.
+     */
+    static void pause(long micros) {
+        if (micros <= 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + micros * 1_000;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
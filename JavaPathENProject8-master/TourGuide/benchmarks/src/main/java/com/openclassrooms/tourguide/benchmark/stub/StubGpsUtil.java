@@ -0,0 +1,73 @@
+/**
+ * Bouchon de gpsUtil pour les benchmarks.
+ * Le catalogue est généré une fois à partir d'une graine, et chaque appel attend une latence configurable
+ * au lieu des pauses aléatoires et du limiteur de débit du service réel.
+ */
+package com.openclassrooms.tourguide.benchmark.stub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class StubGpsUtil extends GpsUtil {
+
+    private final List<Attraction> attractions;
+
+    private final long latencyMicros;
+
+    /**
+     * Constructeur du bouchon.
+     * @param attractionCount nombre d'attractions du catalogue.
+     * @param latencyMicros latence de chaque appel, en microsecondes.
+     * @param seed graine de génération du catalogue.
+     */
+    public StubGpsUtil(int attractionCount, long latencyMicros, long seed) {
+        Random random = new Random(seed);
+        List<Attraction> generated = new ArrayList<>(attractionCount);
+        for (int i = 0; i < attractionCount; i++) {
+            generated.add(new Attraction("Attraction " + i, "City " + i, "State",
+                    randomLatitude(random), randomLongitude(random)));
+        }
+        this.attractions = Collections.unmodifiableList(generated);
+        this.latencyMicros = latencyMicros;
+    }
+
+    @Override
+    public List<Attraction> getAttractions() {
+        Latency.pause(latencyMicros);
+        return new ArrayList<>(attractions);
+    }
+
+    @Override
+    public VisitedLocation getUserLocation(UUID userId) {
+        Latency.pause(latencyMicros);
+        Random random = ThreadLocalRandom.current();
+        return new VisitedLocation(userId, new Location(randomLatitude(random), randomLongitude(random)), new Date());
+    }
+
+    /**
+     * Génère une position aléatoire, avec les mêmes bornes que le service réel.
+     * @param random générateur.
+     * @return position aléatoire.
+     */
+    public static Location randomLocation(Random random) {
+        return new Location(randomLatitude(random), randomLongitude(random));
+    }
+
+    private static double randomLatitude(Random random) {
+        return -85.05112878 + random.nextDouble() * (85.05112878 * 2);
+    }
+
+    private static double randomLongitude(Random random) {
+        return -180 + random.nextDouble() * 360;
+    }
+}
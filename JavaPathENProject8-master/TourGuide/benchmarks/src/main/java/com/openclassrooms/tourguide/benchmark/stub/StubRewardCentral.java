@@ -0,0 +1,27 @@
+/**
+ * Bouchon de RewardCentral pour les benchmarks : points déterministes après une latence configurable.
+ */
+package com.openclassrooms.tourguide.benchmark.stub;
+
+import java.util.UUID;
+
+import rewardCentral.RewardCentral;
+
+public class StubRewardCentral extends RewardCentral {
+
+    private final long latencyMicros;
+
+    /**
+     * Constructeur du bouchon.
+     * @param latencyMicros latence de chaque appel, en microsecondes.
+     */
+    public StubRewardCentral(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+    }
+
+    @Override
+    public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+        Latency.pause(latencyMicros);
+        return 1 + Math.floorMod(attractionId.hashCode() ^ userId.hashCode(), 1000);
+    }
+}
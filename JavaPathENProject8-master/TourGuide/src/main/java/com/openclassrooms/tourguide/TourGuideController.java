@@ -2,19 +2,43 @@
  * Contrôleur REST principal de l'application TourGuide.
  * Il fournit des endpoints pour localiser un utilisateur, récupérer ses attractions proches,
  * ses récompenses, et des offres de voyage personnalisées.
+ * Les endpoints qui appellent gpsUtil, RewardCentral ou TripPricer retournent un {@link CompletableFuture} :
+ * le thread Tomcat est libéré pendant l'appel externe, la réponse est écrite à la complétion du futur.
  */
 package com.openclassrooms.tourguide;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
-import gpsUtil.location.Attraction;
 import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.dto.UserOverviewDTO;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
@@ -26,6 +50,12 @@ public class TourGuideController {
     @Autowired
     TourGuideService tourGuideService;
 
+    @Autowired
+    TourGuideProperties properties;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
     /**
      * Point d'entrée racine.
      * @return Un message de bienvenue simple.
@@ -41,8 +71,9 @@ public class TourGuideController {
      * @return Dernière position connue de l'utilisateur.
      */
     @RequestMapping("/getLocation")
-    public VisitedLocation getLocation(@RequestParam String userName) {
-        return tourGuideService.getUserLocation(getUser(userName));
+    public CompletableFuture<VisitedLocation> getLocation(@RequestParam String userName) {
+        User user = getUser(userName);
+        return serve(() -> tourGuideService.getUserLocationAsync(user));
     }
 
     /**
@@ -52,8 +83,9 @@ public class TourGuideController {
      * @return Liste de NearbyAttractionDTO correspondant aux attractions les plus proches.
      */
     @RequestMapping("/getNearbyAttractions")
-    public List<NearbyAttractionDTO> getNearbyAttractions(@RequestParam String userName) {
-        return tourGuideService.getNearbyAttractionsDetailed(getUser(userName));
+    public CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractions(@RequestParam String userName) {
+        User user = getUser(userName);
+        return serve(() -> tourGuideService.getNearbyAttractionsDetailedAsync(user));
     }
 
     /**
@@ -72,8 +104,110 @@ public class TourGuideController {
      * @return Liste des offres disponibles depuis des fournisseurs partenaires.
      */
     @RequestMapping("/getTripDeals")
-    public List<Provider> getTripDeals(@RequestParam String userName) {
-        return tourGuideService.getTripDeals(getUser(userName));
+    public CompletableFuture<List<Provider>> getTripDeals(@RequestParam String userName) {
+        User user = getUser(userName);
+        return serve(() -> tourGuideService.getTripDealsAsync(user));
+    }
+
+    /**
+     * Renvoie, pour une liste d'utilisateurs, leur dernière position, leurs récompenses et leurs attractions proches.
+     * La réponse est un flux NDJSON : une ligne {@link UserOverviewDTO} par utilisateur, écrite dès que son résultat
+     * est disponible (ordre de complétion). Un échec pour un utilisateur produit une ligne partielle avec son erreur.
+     * @param userNames Noms des utilisateurs, au plus {@code tourguide.execution.bulk-max-users}.
+     * @return Flux des synthèses par utilisateur.
+     */
+    @PostMapping(value = "/getUsersOverview", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter getUsersOverview(@RequestBody List<String> userNames) {
+        TourGuideProperties.Execution execution = properties.getExecution();
+        if (userNames.size() > execution.getBulkMaxUsers()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + execution.getBulkMaxUsers() + " users per request");
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(execution.getBulkTimeout().toMillis());
+        tourGuideService.getUserOverviews(userNames, overview -> {
+            // l'objet et son séparateur de ligne sont écrits ensemble, les résultats arrivant de plusieurs threads
+            synchronized (emitter) {
+                try {
+                    emitter.send(overview, MediaType.APPLICATION_JSON);
+                    emitter.send("\n", MediaType.TEXT_PLAIN);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }).whenComplete((v, error) -> {
+            if (error != null) {
+                emitter.completeWithError(error);
+            } else {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Exporte la dernière position connue de tous les utilisateurs, en flux NDJSON
+     * ({@code {"userId", "latitude", "longitude", "timeVisited"}} par ligne).
+     * Seules les positions déjà en mémoire sont lues : aucun appel à gpsUtil, et les utilisateurs sans position
+     * sont omis. Chaque ligne est écrite au fil du parcours du registre, sans construire la liste complète.
+     * @return Flux des positions.
+     */
+    @GetMapping(value = "/getAllCurrentLocations", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody getAllCurrentLocations() {
+        return out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                tourGuideService.forEachLatestLocation((userId, latitude, longitude, timeMillis) -> {
+                    try {
+                        json.writeStartObject();
+                        json.writeStringField("userId", userId.toString());
+                        json.writeNumberField("latitude", latitude);
+                        json.writeNumberField("longitude", longitude);
+                        json.writeStringField("timeVisited", Instant.ofEpochMilli(timeMillis).toString());
+                        json.writeEndObject();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeRaw('\n');
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    /**
+     * Un appel externe qui dépasse le délai configuré est signalé comme une passerelle expirée.
+     * @return message d'erreur.
+     */
+    @ExceptionHandler(TimeoutException.class)
+    @ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+    public String onTimeout() {
+        return "Upstream service timed out";
+    }
+
+    /**
+     * Un executor saturé refuse l'appel : le client peut réessayer plus tard.
+     * @return message d'erreur.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public String onRejected() {
+        return "Too many pending requests";
+    }
+
+    /**
+     * Sert un appel asynchrone, ou l'attend dans le thread de requête si les endpoints asynchrones sont désactivés.
+     * @param call appel asynchrone au service.
+     * @param <T> type de la réponse.
+     * @return futur de la réponse.
+     */
+    private <T> CompletableFuture<T> serve(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> future = call.get();
+        if (!properties.getExecution().isAsyncEndpoints()) {
+            future.exceptionally(e -> null).join();
+        }
+        return future;
     }
 
     /**
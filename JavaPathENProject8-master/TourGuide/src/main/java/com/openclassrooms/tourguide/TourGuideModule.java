@@ -1,17 +1,27 @@
 /**
  * Configuration Spring de l'application TourGuide.
- * Déclare les beans nécessaires à l'injection de dépendances : GpsUtil, RewardCentral, RewardsService.
+ * Déclare les beans nécessaires à l'injection de dépendances : GpsUtil, RewardCentral,
+ * l'indicateur de santé de la création des utilisateurs internes, et active la liaison des propriétés
+ * {@code tourguide.*}. RewardsService est un {@code @Service} : une seule instance existe, celle qui publie
+ * ses métriques.
  */
 package com.openclassrooms.tourguide;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import gpsUtil.GpsUtil;
 import rewardCentral.RewardCentral;
-import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.service.TourGuideService;
 
 @Configuration
+@EnableConfigurationProperties(TourGuideProperties.class)
 public class TourGuideModule {
 
     /**
@@ -24,21 +34,32 @@ public class TourGuideModule {
     }
 
     /**
-     * Bean Spring pour le service de calcul des récompenses.
-     * Il est initialisé avec les beans GpsUtil et RewardCentral.
-     * @return instance de RewardsService.
+     * Bean Spring pour l'outil RewardCentral, permettant de récupérer les points de récompense.
+     * @return instance de RewardCentral.
      */
     @Bean
-    public RewardsService getRewardsService() {
-        return new RewardsService(getGpsUtil(), getRewardCentral());
+    public RewardCentral getRewardCentral() {
+        return new RewardCentral();
     }
 
     /**
-     * Bean Spring pour l'outil RewardCentral, permettant de récupérer les points de récompense.
-     * @return instance de RewardCentral.
+     * Indicateur de santé {@code internalUsers} : hors service tant que la création des utilisateurs internes
+     * en arrière-plan n'est pas terminée, en panne si elle a échoué.
+     * @param tourGuideService service TourGuide.
+     * @return indicateur de santé.
      */
     @Bean
-    public RewardCentral getRewardCentral() {
-        return new RewardCentral();
+    public HealthIndicator internalUsersHealthIndicator(TourGuideService tourGuideService) {
+        return () -> {
+            int users = tourGuideService.getUserRegistry().size();
+            CompletableFuture<Void> ready = tourGuideService.getInternalUsersReady();
+            if (!ready.isDone()) {
+                return Health.outOfService().withDetail("users", users).build();
+            }
+            if (ready.isCompletedExceptionally()) {
+                return Health.down().withException(ready.exceptionNow()).withDetail("users", users).build();
+            }
+            return Health.up().withDetail("users", users).build();
+        };
     }
 }
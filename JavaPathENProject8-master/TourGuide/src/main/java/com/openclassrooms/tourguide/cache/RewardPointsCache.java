@@ -0,0 +1,123 @@
+/**
+ * Cache borné des points de récompense par couple (attraction, utilisateur).
+ * La clé est composée des quatre mots de 64 bits des deux UUID, sans construction de chaîne.
+ * Les entrées sont évincées au-delà d'une taille maximale ou d'une durée de vie, et les appels
+ * concurrents pour une même clé partagent un unique chargement auprès de RewardCentral.
+ */
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.ToIntBiFunction;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+public class RewardPointsCache {
+
+    /** Cache asynchrone : la valeur est un futur partagé par tous les appelants d'une même clé. */
+    private final AsyncCache<Key, Integer> cache;
+
+    /**
+     * Constructeur du cache.
+     * @param maximumSize nombre maximal d'entrées conservées.
+     * @param expireAfterWrite durée de vie d'une entrée.
+     */
+    public RewardPointsCache(long maximumSize, Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Retourne les points en cache ou les charge une seule fois pour tous les appelants concurrents.
+     * Un chargement en échec, quelle que soit l'erreur, n'est pas conservé et est transmis à tous ses appelants.
+     * @param attractionId identifiant de l'attraction.
+     * @param userId identifiant de l'utilisateur.
+     * @param loader appel au service de récompenses.
+     * @return points de récompense.
+     */
+    public int get(UUID attractionId, UUID userId, ToIntBiFunction<UUID, UUID> loader) {
+        Key key = new Key(attractionId.getMostSignificantBits(), attractionId.getLeastSignificantBits(),
+                userId.getMostSignificantBits(), userId.getLeastSignificantBits());
+        // Le futur est inséré vide puis complété par son créateur, hors des verrous internes du cache :
+        // les autres appelants de la même clé l'attendent au lieu d'appeler RewardCentral.
+        CompletableFuture<Integer> created = new CompletableFuture<>();
+        CompletableFuture<Integer> points = cache.get(key, (k, executor) -> created);
+        if (points == created) {
+            try {
+                created.complete(loader.applyAsInt(attractionId, userId));
+            } catch (Throwable e) {
+                // Toujours compléter le futur : les appelants de la clé l'attendraient sinon indéfiniment
+                created.completeExceptionally(e);
+            }
+        }
+        try {
+            return points.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    /**
+     * Retourne le nombre approximatif d'entrées.
+     * @return taille estimée.
+     */
+    public long estimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Retourne le nombre de lectures servies par le cache, chargements partagés compris.
+     * @return nombre de succès.
+     */
+    public long getHitCount() {
+        return cache.synchronous().stats().hitCount();
+    }
+
+    /**
+     * Retourne le nombre de lectures ayant déclenché un chargement.
+     * @return nombre d'échecs.
+     */
+    public long getMissCount() {
+        return cache.synchronous().stats().missCount();
+    }
+
+    /**
+     * Retourne le nombre d'entrées évincées (taille ou durée de vie).
+     * @return nombre d'évictions.
+     */
+    public long getEvictionCount() {
+        return cache.synchronous().stats().evictionCount();
+    }
+
+    /**
+     * Retourne la vue synchrone du cache, pour l'instrumentation.
+     * @return cache sous-jacent.
+     */
+    public Cache<?, ?> asCache() {
+        return cache.synchronous();
+    }
+
+    /** Clé composite : deux UUID de 128 bits décomposés en mots de 64 bits. */
+    private record Key(long attractionMsb, long attractionLsb, long userMsb, long userLsb) {
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Cache des offres de voyage, indexé par les seules entrées de TripPricer : utilisateur, nombre d'adultes
+ * et d'enfants, durée du voyage et total des points de récompense.
+ * Une entrée plus ancienne que le délai de rafraîchissement est encore servie immédiatement, pendant qu'un
+ * rechargement est lancé en arrière-plan ; elle n'est plus servie au-delà de sa durée de vie.
+ * Lorsque les préférences ou le total des points d'un utilisateur changent, la clé change : l'entrée
+ * précédente de cet utilisateur est alors invalidée, et chaque utilisateur occupe au plus une entrée.
+ */
+package com.openclassrooms.tourguide.cache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import tripPricer.Provider;
+
+public class TripDealsCache {
+
+    private final LoadingCache<Key, List<Provider>> cache;
+
+    /** Appel à TripPricer. */
+    private final Function<Key, List<Provider>> loader;
+
+    /** Dernière clé demandée pour chaque utilisateur. */
+    private final ConcurrentMap<UUID, Key> currentKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructeur du cache.
+     * @param maximumSize nombre maximal d'entrées conservées.
+     * @param expireAfterWrite durée de vie d'une entrée.
+     * @param refreshAfterWrite âge à partir duquel une lecture déclenche un rechargement en arrière-plan ;
+     *                          null ou nul pour désactiver, doit être inférieur à la durée de vie.
+     * @param refreshExecutor executor des rechargements en arrière-plan.
+     * @param loader appel à TripPricer.
+     */
+    public TripDealsCache(long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite,
+                          Executor refreshExecutor, Function<Key, List<Provider>> loader) {
+        this.loader = loader;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .executor(refreshExecutor)
+                .recordStats();
+        if (refreshAfterWrite != null && refreshAfterWrite.isPositive()) {
+            if (refreshAfterWrite.compareTo(expireAfterWrite) >= 0) {
+                throw new IllegalArgumentException("refreshAfterWrite must be shorter than expireAfterWrite: "
+                        + refreshAfterWrite + " >= " + expireAfterWrite);
+            }
+            builder.refreshAfterWrite(refreshAfterWrite);
+        }
+        this.cache = builder
+                .<Key, List<Provider>>evictionListener((key, value, cause) -> {
+                    if (key != null) {
+                        currentKeys.remove(key.userId(), key);
+                    }
+                })
+                .build(loader::apply);
+    }
+
+    /**
+     * Retourne les offres en cache, ou les charge auprès de TripPricer dans le thread appelant.
+     * Les appels concurrents pour une même clé partagent un unique chargement ; un échec n'est pas conservé.
+     * @param key entrées de la tarification.
+     * @return offres de voyage.
+     */
+    public List<Provider> get(Key key) {
+        track(key);
+        return cache.get(key);
+    }
+
+    /**
+     * Retourne les offres en cache sans les charger.
+     * @param key entrées de la tarification.
+     * @return offres de voyage, ou null si elles ne sont pas en cache.
+     */
+    public List<Provider> getIfPresent(Key key) {
+        track(key);
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * Charge les offres dans le thread appelant après un échec de {@link #getIfPresent}, sans compter
+     * un second échec. Les chargements concurrents d'une même clé sont partagés, et une entrée chargée
+     * entre-temps est conservée.
+     * @param key entrées de la tarification, déjà lues par getIfPresent.
+     * @return offres de voyage.
+     */
+    public List<Provider> load(Key key) {
+        return cache.asMap().compute(key, (k, current) -> current != null ? current : loader.apply(k));
+    }
+
+    /** Invalide l'entrée précédente de l'utilisateur si ses entrées de tarification ont changé. */
+    private void track(Key key) {
+        Key previous = currentKeys.put(key.userId(), key);
+        if (previous != null && !previous.equals(key)) {
+            cache.invalidate(previous);
+        }
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+        currentKeys.clear();
+    }
+
+    /**
+     * Retourne le nombre approximatif d'entrées.
+     * @return taille estimée.
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Retourne le nombre de lectures servies par le cache, entrées à rafraîchir comprises.
+     * @return nombre de succès.
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * Retourne le nombre de lectures sans entrée en cache.
+     * @return nombre d'échecs.
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * Retourne la vue du cache, pour l'instrumentation.
+     * @return cache sous-jacent.
+     */
+    public Cache<?, ?> asCache() {
+        return cache;
+    }
+
+    /**
+     * Entrées de la tarification TripPricer.
+     * @param userId identifiant de l'utilisateur.
+     * @param adults nombre d'adultes.
+     * @param children nombre d'enfants.
+     * @param tripDuration durée du voyage en jours.
+     * @param rewardPoints total des points de récompense.
+     */
+    public record Key(UUID userId, int adults, int children, int tripDuration, int rewardPoints) {
+    }
+}
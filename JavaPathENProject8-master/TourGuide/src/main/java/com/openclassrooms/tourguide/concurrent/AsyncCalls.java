@@ -0,0 +1,129 @@
+/**
+ * Appels asynchrones annulables sur un executor dédié.
+ * Contrairement à {@link CompletableFuture#supplyAsync}, l'annulation ou l'expiration du futur retourné
+ * interrompt la tâche en cours : un appel bloqué sur un service externe ou en attente d'un permis
+ * d'un {@link VendorCallLimiter} libère son thread.
+ */
+package com.openclassrooms.tourguide.concurrent;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public final class AsyncCalls {
+
+    private AsyncCalls() {
+    }
+
+    /**
+     * Exécute une tâche sur un executor et retourne son futur.
+     * Si le futur est annulé ou complété en erreur avant la fin de la tâche, celle-ci est interrompue.
+     * @param task tâche bloquante.
+     * @param executor executor dédié.
+     * @param <T> type du résultat.
+     * @return futur du résultat, en erreur avec {@link RejectedExecutionException} si l'executor est saturé.
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task, ExecutorService executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean finished = new AtomicBoolean();
+        Future<?> running;
+        try {
+            running = executor.submit(() -> {
+                try {
+                    T value = task.get();
+                    finished.set(true);
+                    result.complete(value);
+                } catch (Throwable e) {
+                    finished.set(true);
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.whenComplete((value, error) -> {
+            // une erreur de la tâche elle-même n'interrompt pas son propre thread
+            if (error != null && !finished.get()) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Enchaîne un second appel asynchrone sur le résultat d'un premier.
+     * Annuler ou faire expirer le futur retourné annule l'étape en cours, et donc interrompt sa tâche.
+     * @param first premier appel.
+     * @param next construction du second appel à partir du résultat du premier.
+     * @param <T> type du résultat intermédiaire.
+     * @param <U> type du résultat final.
+     * @return futur du résultat final.
+     */
+    public static <T, U> CompletableFuture<U> compose(CompletableFuture<T> first,
+                                                      Function<? super T, CompletableFuture<U>> next) {
+        CompletableFuture<U> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<U>> second = new AtomicReference<>();
+        first.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            CompletableFuture<U> stage;
+            try {
+                stage = next.apply(value);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            second.set(stage);
+            stage.whenComplete((nextValue, nextError) -> {
+                if (nextError != null) {
+                    result.completeExceptionally(unwrap(nextError));
+                } else {
+                    result.complete(nextValue);
+                }
+            });
+            if (result.isCompletedExceptionally()) {
+                stage.cancel(true);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                first.cancel(true);
+                CompletableFuture<U> stage = second.get();
+                if (stage != null) {
+                    stage.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Borne la durée d'un futur : à expiration, il est complété par une {@link java.util.concurrent.TimeoutException}
+     * et sa tâche est annulée.
+     * @param future futur à borner.
+     * @param timeout durée maximale, null ou nulle pour aucune limite.
+     * @param <T> type du résultat.
+     * @return le même futur.
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return future;
+        }
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Limite le débit d'appels vers un service externe à un nombre d'appels par seconde.
+ * Les appels sont espacés régulièrement, sans rafale : chaque acquisition réserve le créneau suivant
+ * et attend qu'il arrive. Complète {@link VendorCallLimiter}, qui borne le nombre d'appels simultanés.
+ */
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+public class CallRateLimiter {
+
+    /** Écart entre deux créneaux en nanosecondes, 0 si le débit est illimité. */
+    private final long spacingNanos;
+
+    /** Prochain créneau libre (System.nanoTime). */
+    private long nextSlotNanos = System.nanoTime();
+
+    /**
+     * Constructeur du limiteur.
+     * @param callsPerSecond débit maximal ; 0 ou négatif pour aucune limite.
+     */
+    public CallRateLimiter(double callsPerSecond) {
+        this.spacingNanos = callsPerSecond > 0 ? Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / callsPerSecond)) : 0;
+    }
+
+    /**
+     * Attend le prochain créneau d'appel.
+     * @throws InterruptedException si le thread est interrompu pendant l'attente.
+     */
+    public void acquire() throws InterruptedException {
+        if (spacingNanos == 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(now, nextSlotNanos);
+            nextSlotNanos = slot + spacingNanos;
+            waitNanos = slot - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
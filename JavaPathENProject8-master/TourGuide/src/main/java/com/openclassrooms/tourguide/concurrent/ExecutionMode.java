@@ -0,0 +1,70 @@
+/**
+ * Mode d'exécution des tâches qui appellent les services externes bloquants
+ * (gpsUtil, RewardCentral, TripPricer).
+ */
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public enum ExecutionMode {
+
+    /** Pool fixe de threads plateforme, dimensionné explicitement. */
+    PLATFORM,
+
+    /** Un thread virtuel par tâche, sans dimensionnement de pool. */
+    VIRTUAL;
+
+    /**
+     * Crée un executor adapté au mode.
+     * @param platformPoolSize taille du pool en mode {@link #PLATFORM}, ignorée en mode {@link #VIRTUAL}.
+     * @return nouvel executor.
+     */
+    public ExecutorService newExecutor(int platformPoolSize) {
+        return this == VIRTUAL
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(Math.max(1, platformPoolSize));
+    }
+
+    /**
+     * Crée un executor dédié et borné pour les appels asynchrones.
+     * En mode {@link #PLATFORM}, pool fixe de threads démons nommés avec une file d'attente bornée :
+     * une tâche soumise à file pleine est rejetée ({@link java.util.concurrent.RejectedExecutionException}).
+     * En mode {@link #VIRTUAL}, un thread virtuel nommé par tâche ; la concurrence est bornée par les limiteurs d'appels.
+     * @param name préfixe du nom des threads.
+     * @param platformPoolSize taille du pool en mode {@link #PLATFORM}.
+     * @param queueCapacity capacité de la file d'attente en mode {@link #PLATFORM}.
+     * @return nouvel executor.
+     */
+    public ExecutorService newBoundedExecutor(String name, int platformPoolSize, int queueCapacity) {
+        if (this == VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(newThreadFactory(name));
+        }
+        int size = Math.max(1, platformPoolSize);
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), newThreadFactory(name));
+    }
+
+    /**
+     * Crée une fabrique de threads nommés {@code name-<n>} : threads virtuels en mode {@link #VIRTUAL},
+     * threads plateforme démons en mode {@link #PLATFORM}.
+     * @param name préfixe du nom des threads.
+     * @return nouvelle fabrique.
+     */
+    public ThreadFactory newThreadFactory(String name) {
+        if (this == VIRTUAL) {
+            return Thread.ofVirtual().name(name + "-", 0).factory();
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
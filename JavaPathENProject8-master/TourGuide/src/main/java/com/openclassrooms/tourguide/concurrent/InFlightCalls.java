@@ -0,0 +1,190 @@
+/**
+ * Déduplication des appels en cours par clé : tant qu'un appel pour une clé n'est pas terminé,
+ * les appelants suivants en partagent le résultat au lieu d'en lancer un nouveau.
+ * <ul>
+ *     <li>{@link #call} exécute l'appel dans le thread appelant s'il est le premier, sinon attend l'appel en cours ;</li>
+ *     <li>{@link #join} démarre un appel asynchrone s'il est le premier, sinon suit l'appel en cours.</li>
+ * </ul>
+ * Chaque appelant asynchrone reçoit son propre futur : l'annuler ne concerne que lui. L'appel partagé
+ * n'est annulé (et sa tâche interrompue) que lorsque tous ses appelants y ont renoncé ; il est alors retiré,
+ * et l'appelant suivant en démarre un nouveau.
+ */
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class InFlightCalls<K, V> {
+
+    /** Appels en cours par clé. */
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    /** Appelants ayant rejoint un appel déjà en cours. */
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Exécute un appel bloquant, ou attend celui déjà en cours pour la même clé.
+     * @param key clé de déduplication.
+     * @param task appel à exécuter dans le thread appelant s'il n'y en a pas en cours.
+     * @return résultat de l'appel, propre ou partagé.
+     * @throws CancellationException si le thread est interrompu pendant l'attente.
+     */
+    public V call(K key, Supplier<V> task) {
+        while (true) {
+            Call<V> created = new Call<>();
+            Call<V> call = calls.putIfAbsent(key, created);
+            if (call == null) {
+                try {
+                    V value = task.get();
+                    calls.remove(key, created);
+                    created.shared.complete(value);
+                    return value;
+                } catch (RuntimeException | Error e) {
+                    calls.remove(key, created);
+                    created.shared.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            if (call.tryJoin()) {
+                coalesced.increment();
+                try {
+                    return await(call.shared);
+                } finally {
+                    leave(key, call);
+                }
+            }
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Démarre un appel asynchrone, ou suit celui déjà en cours pour la même clé.
+     * @param key clé de déduplication.
+     * @param starter démarrage de l'appel s'il n'y en a pas en cours.
+     * @return futur propre à l'appelant, complété avec le résultat partagé.
+     */
+    public CompletableFuture<V> join(K key, Supplier<CompletableFuture<V>> starter) {
+        while (true) {
+            Call<V> created = new Call<>();
+            Call<V> call = calls.putIfAbsent(key, created);
+            if (call == null) {
+                created.tryJoin();
+                start(key, created, starter);
+                return follow(key, created);
+            }
+            if (call.tryJoin()) {
+                coalesced.increment();
+                return follow(key, call);
+            }
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * Retourne le nombre d'appelants ayant partagé un appel en cours plutôt que d'en lancer un.
+     * @return nombre d'appels évités.
+     */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Retourne le nombre de clés ayant un appel en cours.
+     * @return appels en cours.
+     */
+    public int inFlightCount() {
+        return calls.size();
+    }
+
+    private void start(K key, Call<V> call, Supplier<CompletableFuture<V>> starter) {
+        CompletableFuture<V> running;
+        try {
+            running = starter.get();
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        call.running = running;
+        running.whenComplete((value, error) -> {
+            calls.remove(key, call);
+            if (error != null) {
+                call.shared.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                call.shared.complete(value);
+            }
+        });
+    }
+
+    private CompletableFuture<V> follow(K key, Call<V> call) {
+        CompletableFuture<V> own = call.shared.copy();
+        own.whenComplete((value, error) -> {
+            if (error != null) {
+                leave(key, call);
+            }
+        });
+        return own;
+    }
+
+    /** Retire un appelant ; le dernier à renoncer à un appel asynchrone inachevé l'annule. */
+    private void leave(K key, Call<V> call) {
+        if (call.leave()) {
+            calls.remove(key, call);
+            call.running.cancel(true);
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an in-flight call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /** Appel partagé et ses appelants. */
+    private static final class Call<V> {
+
+        /** Résultat partagé entre les appelants. */
+        private final CompletableFuture<V> shared = new CompletableFuture<>();
+
+        /** Appel asynchrone sous-jacent, null si l'appel s'exécute dans le thread du premier appelant. */
+        private volatile CompletableFuture<V> running;
+
+        private int waiters;
+
+        /** Vrai une fois l'appel annulé faute d'appelants : il ne peut plus être rejoint. */
+        private boolean abandoned;
+
+        private synchronized boolean tryJoin() {
+            if (abandoned) {
+                return false;
+            }
+            waiters++;
+            return true;
+        }
+
+        private synchronized boolean leave() {
+            waiters--;
+            if (waiters == 0 && running != null && !shared.isDone()) {
+                abandoned = true;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Limite le nombre d'appels simultanés vers un service externe.
+ * Indispensable en mode virtuel, où le nombre de threads n'est plus borné par la taille d'un pool.
+ * La durée de chaque appel, attente d'un permis exclue, et le nombre d'appels en cours sont publiés
+ * sous {@code tourguide.vendor.calls}, avec le nom du service en tag.
+ */
+package com.openclassrooms.tourguide.concurrent;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+public class VendorCallLimiter {
+
+    /** Nom du service externe, utilisé dans les messages d'erreur. */
+    private final String vendor;
+
+    /** Permis d'appel disponibles. */
+    private final Semaphore permits;
+
+    /** Nombre total de permis. */
+    private final int maxConcurrentCalls;
+
+    /** Durée des appels au service externe. */
+    private final Timer calls;
+
+    /**
+     * Constructeur du limiteur, sans publication de métriques.
+     * @param vendor nom du service externe.
+     * @param maxConcurrentCalls nombre maximal d'appels simultanés (au moins 1).
+     */
+    public VendorCallLimiter(String vendor, int maxConcurrentCalls) {
+        this(vendor, maxConcurrentCalls, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Constructeur du limiteur.
+     * @param vendor nom du service externe.
+     * @param maxConcurrentCalls nombre maximal d'appels simultanés (au moins 1).
+     * @param registry registre Micrometer des métriques d'appel.
+     */
+    public VendorCallLimiter(String vendor, int maxConcurrentCalls, MeterRegistry registry) {
+        this.vendor = vendor;
+        this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+        this.permits = new Semaphore(this.maxConcurrentCalls, true);
+        this.calls = Timer.builder("tourguide.vendor.calls")
+                .tag("vendor", vendor)
+                .register(registry);
+        Gauge.builder("tourguide.vendor.calls.active", this, VendorCallLimiter::activeCalls)
+                .tag("vendor", vendor)
+                .register(registry);
+    }
+
+    /**
+     * Exécute un appel en attendant qu'un permis soit disponible.
+     * @param call appel au service externe.
+     * @param <T> type du résultat.
+     * @return résultat de l'appel.
+     * @throws CancellationException si le thread est interrompu pendant l'attente.
+     */
+    public <T> T call(Supplier<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + vendor);
+        }
+        try {
+            return calls.record(call);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Retourne le nombre d'appels pouvant encore démarrer immédiatement.
+     * @return permis disponibles.
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Retourne le nombre d'appels en cours.
+     * @return permis utilisés.
+     */
+    public int activeCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+}
@@ -0,0 +1,1011 @@
+/**
+ * Propriétés de configuration de l'application TourGuide (préfixe {@code tourguide}).
+ * Les valeurs par défaut permettent d'instancier les services sans contexte Spring, notamment dans les tests.
+ */
+package com.openclassrooms.tourguide.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.user.LocationHistory;
+
+@ConfigurationProperties(prefix = "tourguide")
+public class TourGuideProperties {
+
+    /** Paramètres du tracker de localisation. */
+    private final Tracker tracker = new Tracker();
+
+    /** Paramètres d'exécution des appels aux services externes. */
+    private final Execution execution = new Execution();
+
+    /** Paramètres du pipeline de suivi groupé. */
+    private final Pipeline pipeline = new Pipeline();
+
+    /** Paramètres du catalogue d'attractions. */
+    private final Attractions attractions = new Attractions();
+
+    /** Paramètres du calcul des récompenses. */
+    private final Rewards rewards = new Rewards();
+
+    /** Paramètres de rétention de l'historique des positions. */
+    private final History history = new History();
+
+    /** Paramètres du cache des offres de voyage. */
+    private final TripDeals tripDeals = new TripDeals();
+
+    /** Paramètres du stockage persistant des positions et des récompenses. */
+    private final Store store = new Store();
+
+    /** Paramètres de création des utilisateurs internes. */
+    private final InternalUsers internalUsers = new InternalUsers();
+
+    /**
+     * Retourne les paramètres du tracker.
+     * @return configuration du tracker.
+     */
+    public Tracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Retourne les paramètres d'exécution.
+     * @return configuration d'exécution.
+     */
+    public Execution getExecution() {
+        return execution;
+    }
+
+    /**
+     * Retourne les paramètres du pipeline de suivi groupé.
+     * @return configuration du pipeline.
+     */
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Retourne les paramètres du catalogue d'attractions.
+     * @return configuration du catalogue.
+     */
+    public Attractions getAttractions() {
+        return attractions;
+    }
+
+    /**
+     * Retourne les paramètres du calcul des récompenses.
+     * @return configuration des récompenses.
+     */
+    public Rewards getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Retourne les paramètres de rétention de l'historique des positions.
+     * @return configuration de l'historique.
+     */
+    public History getHistory() {
+        return history;
+    }
+
+    /**
+     * Retourne les paramètres du cache des offres de voyage.
+     * @return configuration des offres de voyage.
+     */
+    public TripDeals getTripDeals() {
+        return tripDeals;
+    }
+
+    /**
+     * Retourne les paramètres du stockage persistant.
+     * @return configuration du stockage.
+     */
+    public Store getStore() {
+        return store;
+    }
+
+    /**
+     * Retourne les paramètres de création des utilisateurs internes.
+     * @return configuration des utilisateurs internes.
+     */
+    public InternalUsers getInternalUsers() {
+        return internalUsers;
+    }
+
+    /**
+     * Paramètres du cycle de suivi des utilisateurs.
+     */
+    public static class Tracker {
+
+        /** Période entre deux démarrages de cycle. */
+        private Duration pollingInterval = Duration.ofMinutes(5);
+
+        /** Délai avant le premier cycle. */
+        private Duration initialDelay = Duration.ZERO;
+
+        /** Nombre d'utilisateurs suivis simultanément en suivi adaptatif, soit la taille du pool de workers. */
+        private int parallelism = 100;
+
+        /** Durée maximale d'un cycle ; par défaut égale à la période. */
+        private Duration cycleDeadline;
+
+        /**
+         * Suivi adaptatif : chaque utilisateur a sa propre échéance au lieu d'un cycle commun.
+         * La période devient l'intervalle initial et la fréquence d'inscription des nouveaux utilisateurs.
+         */
+        private boolean adaptive;
+
+        /** Intervalle minimal entre deux suivis d'un utilisateur en suivi adaptatif. */
+        private Duration minInterval = Duration.ofMinutes(1);
+
+        /** Intervalle maximal entre deux suivis d'un utilisateur en suivi adaptatif. */
+        private Duration maxInterval = Duration.ofMinutes(30);
+
+        /** Déplacement en miles en deçà duquel un utilisateur est considéré immobile. */
+        private double stationaryMiles = 0.1;
+
+        /** Rayon en miles dans lequel une attraction proche ramène l'intervalle au minimum. */
+        private double attractionRadiusMiles = 10;
+
+        /** Nombre maximal d'appels à gpsUtil par seconde en suivi adaptatif ; 0 pour aucune limite. */
+        private double gpsCallsPerSecond = 500;
+
+        /**
+         * Retourne la période entre deux cycles.
+         * @return période de suivi.
+         */
+        public Duration getPollingInterval() {
+            return pollingInterval;
+        }
+
+        /**
+         * Définit la période entre deux cycles.
+         * @param pollingInterval période de suivi.
+         */
+        public void setPollingInterval(Duration pollingInterval) {
+            this.pollingInterval = pollingInterval;
+        }
+
+        /**
+         * Retourne le délai avant le premier cycle.
+         * @return délai initial.
+         */
+        public Duration getInitialDelay() {
+            return initialDelay;
+        }
+
+        /**
+         * Définit le délai avant le premier cycle.
+         * @param initialDelay délai initial.
+         */
+        public void setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+        }
+
+        /**
+         * Retourne le nombre de workers du suivi adaptatif ; sans effet sur le suivi par cycle.
+         * @return parallélisme du suivi adaptatif.
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        /**
+         * Définit le nombre de workers du suivi adaptatif ; sans effet sur le suivi par cycle.
+         * @param parallelism parallélisme du suivi adaptatif (au moins 1).
+         */
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * Retourne la durée maximale d'un cycle, la période si aucune n'est définie.
+         * @return échéance du cycle.
+         */
+        public Duration getCycleDeadline() {
+            return cycleDeadline != null ? cycleDeadline : pollingInterval;
+        }
+
+        /**
+         * Définit la durée maximale d'un cycle.
+         * @param cycleDeadline échéance du cycle.
+         */
+        public void setCycleDeadline(Duration cycleDeadline) {
+            this.cycleDeadline = cycleDeadline;
+        }
+
+        /**
+         * Indique si le suivi est adaptatif.
+         * @return true pour une échéance par utilisateur.
+         */
+        public boolean isAdaptive() {
+            return adaptive;
+        }
+
+        /**
+         * Active ou désactive le suivi adaptatif.
+         * @param adaptive true pour une échéance par utilisateur.
+         */
+        public void setAdaptive(boolean adaptive) {
+            this.adaptive = adaptive;
+        }
+
+        /**
+         * Retourne l'intervalle minimal entre deux suivis d'un utilisateur.
+         * @return intervalle minimal.
+         */
+        public Duration getMinInterval() {
+            return minInterval;
+        }
+
+        /**
+         * Définit l'intervalle minimal entre deux suivis d'un utilisateur.
+         * @param minInterval intervalle minimal.
+         */
+        public void setMinInterval(Duration minInterval) {
+            this.minInterval = minInterval;
+        }
+
+        /**
+         * Retourne l'intervalle maximal entre deux suivis d'un utilisateur.
+         * @return intervalle maximal.
+         */
+        public Duration getMaxInterval() {
+            return maxInterval;
+        }
+
+        /**
+         * Définit l'intervalle maximal entre deux suivis d'un utilisateur.
+         * @param maxInterval intervalle maximal.
+         */
+        public void setMaxInterval(Duration maxInterval) {
+            this.maxInterval = maxInterval;
+        }
+
+        /**
+         * Retourne le déplacement en deçà duquel un utilisateur est immobile.
+         * @return distance en miles.
+         */
+        public double getStationaryMiles() {
+            return stationaryMiles;
+        }
+
+        /**
+         * Définit le déplacement en deçà duquel un utilisateur est immobile.
+         * @param stationaryMiles distance en miles.
+         */
+        public void setStationaryMiles(double stationaryMiles) {
+            this.stationaryMiles = stationaryMiles;
+        }
+
+        /**
+         * Retourne le rayon de recherche des attractions proches.
+         * @return rayon en miles.
+         */
+        public double getAttractionRadiusMiles() {
+            return attractionRadiusMiles;
+        }
+
+        /**
+         * Définit le rayon de recherche des attractions proches.
+         * @param attractionRadiusMiles rayon en miles.
+         */
+        public void setAttractionRadiusMiles(double attractionRadiusMiles) {
+            this.attractionRadiusMiles = attractionRadiusMiles;
+        }
+
+        /**
+         * Retourne le budget d'appels à gpsUtil du suivi adaptatif.
+         * @return appels par seconde, 0 pour aucune limite.
+         */
+        public double getGpsCallsPerSecond() {
+            return gpsCallsPerSecond;
+        }
+
+        /**
+         * Définit le budget d'appels à gpsUtil du suivi adaptatif.
+         * @param gpsCallsPerSecond appels par seconde, 0 pour aucune limite.
+         */
+        public void setGpsCallsPerSecond(double gpsCallsPerSecond) {
+            this.gpsCallsPerSecond = gpsCallsPerSecond;
+        }
+    }
+
+    /**
+     * Paramètres d'exécution des appels bloquants vers gpsUtil, RewardCentral et TripPricer.
+     */
+    public static class Execution {
+
+        /** Mode d'exécution : pool de threads plateforme ou threads virtuels. */
+        private ExecutionMode mode = ExecutionMode.PLATFORM;
+
+        /** Taille des pools en mode plateforme. */
+        private int platformPoolSize = 100;
+
+        /** Nombre maximal d'appels simultanés à gpsUtil. */
+        private int maxConcurrentGpsCalls = 1000;
+
+        /** Nombre maximal d'appels simultanés à RewardCentral. */
+        private int maxConcurrentRewardCalls = 1000;
+
+        /** Nombre maximal d'appels simultanés à TripPricer. */
+        private int maxConcurrentPricerCalls = 1000;
+
+        /** Capacité de la file d'attente de chaque executor asynchrone en mode plateforme. */
+        private int asyncQueueCapacity = 10_000;
+
+        /** Durée maximale d'un appel asynchrone de bout en bout ; zéro pour aucune limite. */
+        private Duration asyncTimeout = Duration.ofSeconds(30);
+
+        /** Endpoints REST servis de manière asynchrone, sans retenir le thread de requête pendant les appels externes. */
+        private boolean asyncEndpoints = true;
+
+        /** Nombre maximal d'utilisateurs traités simultanément par une requête groupée. */
+        private int bulkParallelism = 64;
+
+        /** Nombre maximal d'utilisateurs acceptés par une requête groupée. */
+        private int bulkMaxUsers = 10_000;
+
+        /** Durée maximale d'une réponse groupée en flux. */
+        private Duration bulkTimeout = Duration.ofMinutes(5);
+
+        /**
+         * Retourne le mode d'exécution.
+         * @return mode d'exécution.
+         */
+        public ExecutionMode getMode() {
+            return mode;
+        }
+
+        /**
+         * Définit le mode d'exécution.
+         * @param mode mode d'exécution.
+         */
+        public void setMode(ExecutionMode mode) {
+            this.mode = mode;
+        }
+
+        /**
+         * Retourne la taille des pools en mode plateforme.
+         * @return taille de pool.
+         */
+        public int getPlatformPoolSize() {
+            return platformPoolSize;
+        }
+
+        /**
+         * Définit la taille des pools en mode plateforme.
+         * @param platformPoolSize taille de pool.
+         */
+        public void setPlatformPoolSize(int platformPoolSize) {
+            this.platformPoolSize = platformPoolSize;
+        }
+
+        /**
+         * Retourne la limite d'appels simultanés à gpsUtil.
+         * @return limite d'appels.
+         */
+        public int getMaxConcurrentGpsCalls() {
+            return maxConcurrentGpsCalls;
+        }
+
+        /**
+         * Définit la limite d'appels simultanés à gpsUtil.
+         * @param maxConcurrentGpsCalls limite d'appels.
+         */
+        public void setMaxConcurrentGpsCalls(int maxConcurrentGpsCalls) {
+            this.maxConcurrentGpsCalls = maxConcurrentGpsCalls;
+        }
+
+        /**
+         * Retourne la limite d'appels simultanés à RewardCentral.
+         * @return limite d'appels.
+         */
+        public int getMaxConcurrentRewardCalls() {
+            return maxConcurrentRewardCalls;
+        }
+
+        /**
+         * Définit la limite d'appels simultanés à RewardCentral.
+         * @param maxConcurrentRewardCalls limite d'appels.
+         */
+        public void setMaxConcurrentRewardCalls(int maxConcurrentRewardCalls) {
+            this.maxConcurrentRewardCalls = maxConcurrentRewardCalls;
+        }
+
+        /**
+         * Retourne la limite d'appels simultanés à TripPricer.
+         * @return limite d'appels.
+         */
+        public int getMaxConcurrentPricerCalls() {
+            return maxConcurrentPricerCalls;
+        }
+
+        /**
+         * Définit la limite d'appels simultanés à TripPricer.
+         * @param maxConcurrentPricerCalls limite d'appels.
+         */
+        public void setMaxConcurrentPricerCalls(int maxConcurrentPricerCalls) {
+            this.maxConcurrentPricerCalls = maxConcurrentPricerCalls;
+        }
+
+        /**
+         * Retourne la capacité de la file d'attente des executors asynchrones.
+         * @return nombre maximal de tâches en attente.
+         */
+        public int getAsyncQueueCapacity() {
+            return asyncQueueCapacity;
+        }
+
+        /**
+         * Définit la capacité de la file d'attente des executors asynchrones.
+         * @param asyncQueueCapacity nombre maximal de tâches en attente.
+         */
+        public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+            this.asyncQueueCapacity = asyncQueueCapacity;
+        }
+
+        /**
+         * Retourne la durée maximale d'un appel asynchrone.
+         * @return délai d'expiration.
+         */
+        public Duration getAsyncTimeout() {
+            return asyncTimeout;
+        }
+
+        /**
+         * Définit la durée maximale d'un appel asynchrone.
+         * @param asyncTimeout délai d'expiration.
+         */
+        public void setAsyncTimeout(Duration asyncTimeout) {
+            this.asyncTimeout = asyncTimeout;
+        }
+
+        /**
+         * Indique si les endpoints REST sont servis de manière asynchrone.
+         * @return true si le thread de requête est libéré pendant les appels externes.
+         */
+        public boolean isAsyncEndpoints() {
+            return asyncEndpoints;
+        }
+
+        /**
+         * Active ou désactive le service asynchrone des endpoints REST.
+         * @param asyncEndpoints true pour libérer le thread de requête pendant les appels externes.
+         */
+        public void setAsyncEndpoints(boolean asyncEndpoints) {
+            this.asyncEndpoints = asyncEndpoints;
+        }
+
+        /**
+         * Retourne le nombre maximal d'utilisateurs traités simultanément par une requête groupée.
+         * @return parallélisme d'une requête groupée.
+         */
+        public int getBulkParallelism() {
+            return bulkParallelism;
+        }
+
+        /**
+         * Définit le nombre maximal d'utilisateurs traités simultanément par une requête groupée.
+         * @param bulkParallelism parallélisme d'une requête groupée.
+         */
+        public void setBulkParallelism(int bulkParallelism) {
+            this.bulkParallelism = bulkParallelism;
+        }
+
+        /**
+         * Retourne le nombre maximal d'utilisateurs d'une requête groupée.
+         * @return nombre maximal d'utilisateurs.
+         */
+        public int getBulkMaxUsers() {
+            return bulkMaxUsers;
+        }
+
+        /**
+         * Définit le nombre maximal d'utilisateurs d'une requête groupée.
+         * @param bulkMaxUsers nombre maximal d'utilisateurs.
+         */
+        public void setBulkMaxUsers(int bulkMaxUsers) {
+            this.bulkMaxUsers = bulkMaxUsers;
+        }
+
+        /**
+         * Retourne la durée maximale d'une réponse groupée.
+         * @return délai d'expiration du flux.
+         */
+        public Duration getBulkTimeout() {
+            return bulkTimeout;
+        }
+
+        /**
+         * Définit la durée maximale d'une réponse groupée.
+         * @param bulkTimeout délai d'expiration du flux.
+         */
+        public void setBulkTimeout(Duration bulkTimeout) {
+            this.bulkTimeout = bulkTimeout;
+        }
+    }
+
+    /**
+     * Paramètres du catalogue d'attractions mis en cache.
+     */
+    public static class Attractions {
+
+        /** Durée de vie de l'instantané avant rafraîchissement en arrière-plan ; zéro le désactive. */
+        private Duration refreshInterval = Duration.ofHours(1);
+
+        /** Stratégie de recherche de l'index : arbre k-d, ou parcours linéaire scalaire ou vectoriel. */
+        private AttractionIndex.Search search = AttractionIndex.Search.TREE;
+
+        /**
+         * Retourne la durée de vie de l'instantané.
+         * @return intervalle de rafraîchissement.
+         */
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        /**
+         * Définit la durée de vie de l'instantané.
+         * @param refreshInterval intervalle de rafraîchissement.
+         */
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+        /**
+         * Retourne la stratégie de recherche de l'index.
+         * @return stratégie de recherche.
+         */
+        public AttractionIndex.Search getSearch() {
+            return search;
+        }
+
+        /**
+         * Définit la stratégie de recherche de l'index.
+         * @param search stratégie de recherche.
+         */
+        public void setSearch(AttractionIndex.Search search) {
+            this.search = search;
+        }
+    }
+
+    /**
+     * Paramètres du calcul des récompenses et du cache des points.
+     */
+    public static class Rewards {
+
+        /** Nombre maximal de couples (attraction, utilisateur) conservés dans le cache des points. */
+        private long cacheMaximumSize = 1_000_000;
+
+        /** Durée de vie d'une entrée du cache des points. */
+        private Duration cacheExpireAfterWrite = Duration.ofHours(24);
+
+        /** Nombre d'utilisateurs par lot dans le calcul groupé des récompenses. */
+        private int bulkBatchSize = 1000;
+
+        /**
+         * Retourne la taille maximale du cache des points.
+         * @return nombre maximal d'entrées.
+         */
+        public long getCacheMaximumSize() {
+            return cacheMaximumSize;
+        }
+
+        /**
+         * Définit la taille maximale du cache des points.
+         * @param cacheMaximumSize nombre maximal d'entrées.
+         */
+        public void setCacheMaximumSize(long cacheMaximumSize) {
+            this.cacheMaximumSize = cacheMaximumSize;
+        }
+
+        /**
+         * Retourne la durée de vie d'une entrée du cache des points.
+         * @return durée de vie.
+         */
+        public Duration getCacheExpireAfterWrite() {
+            return cacheExpireAfterWrite;
+        }
+
+        /**
+         * Définit la durée de vie d'une entrée du cache des points.
+         * @param cacheExpireAfterWrite durée de vie.
+         */
+        public void setCacheExpireAfterWrite(Duration cacheExpireAfterWrite) {
+            this.cacheExpireAfterWrite = cacheExpireAfterWrite;
+        }
+
+        /**
+         * Retourne le nombre d'utilisateurs par lot dans le calcul groupé.
+         * @return taille de lot.
+         */
+        public int getBulkBatchSize() {
+            return bulkBatchSize;
+        }
+
+        /**
+         * Définit le nombre d'utilisateurs par lot dans le calcul groupé.
+         * @param bulkBatchSize taille de lot.
+         */
+        public void setBulkBatchSize(int bulkBatchSize) {
+            this.bulkBatchSize = bulkBatchSize;
+        }
+    }
+
+    /**
+     * Rétention de l'historique des positions visitées de chaque utilisateur.
+     */
+    public static class History {
+
+        /** Nombre maximal de positions conservées par utilisateur. */
+        private int maxLocations = LocationHistory.DEFAULT_MAX_LOCATIONS;
+
+        /** Ancienneté maximale d'une position par rapport à la plus récente ; absente pour aucune limite. */
+        private Duration maxAge;
+
+        /** Stockage des positions en colonnes primitives plutôt qu'en objets, au plus maxLocations par utilisateur. */
+        private boolean columnar;
+
+        /**
+         * Retourne le nombre maximal de positions conservées.
+         * @return nombre de positions.
+         */
+        public int getMaxLocations() {
+            return maxLocations;
+        }
+
+        /**
+         * Définit le nombre maximal de positions conservées.
+         * @param maxLocations nombre de positions.
+         */
+        public void setMaxLocations(int maxLocations) {
+            this.maxLocations = maxLocations;
+        }
+
+        /**
+         * Retourne l'ancienneté maximale d'une position.
+         * @return durée, ou null si illimitée.
+         */
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        /**
+         * Définit l'ancienneté maximale d'une position.
+         * @param maxAge durée, ou null si illimitée.
+         */
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    
+        /**
+         * Indique si les positions sont stockées en colonnes primitives.
+         * @return true pour le stockage en colonnes.
+         */
+        public boolean isColumnar() {
+            return columnar;
+        }
+
+        /**
+         * Active le stockage des positions en colonnes primitives.
+         * @param columnar true pour le stockage en colonnes.
+         */
+        public void setColumnar(boolean columnar) {
+            this.columnar = columnar;
+        }
+    }
+
+    /**
+     * Cache des offres de voyage calculées par TripPricer.
+     */
+    public static class TripDeals {
+
+        /** Nombre maximal d'utilisateurs dont les offres sont conservées. */
+        private long cacheMaximumSize = 100_000;
+
+        /** Durée au-delà de laquelle des offres ne sont plus servies. */
+        private Duration cacheExpireAfterWrite = Duration.ofHours(1);
+
+        /** Âge à partir duquel des offres servies sont recalculées en arrière-plan ; 0 pour désactiver. */
+        private Duration cacheRefreshAfterWrite = Duration.ofMinutes(5);
+
+        /**
+         * Retourne la taille maximale du cache des offres.
+         * @return nombre maximal d'entrées.
+         */
+        public long getCacheMaximumSize() {
+            return cacheMaximumSize;
+        }
+
+        /**
+         * Définit la taille maximale du cache des offres.
+         * @param cacheMaximumSize nombre maximal d'entrées.
+         */
+        public void setCacheMaximumSize(long cacheMaximumSize) {
+            this.cacheMaximumSize = cacheMaximumSize;
+        }
+
+        /**
+         * Retourne la durée de vie d'une entrée du cache des offres.
+         * @return durée de vie.
+         */
+        public Duration getCacheExpireAfterWrite() {
+            return cacheExpireAfterWrite;
+        }
+
+        /**
+         * Définit la durée de vie d'une entrée du cache des offres.
+         * @param cacheExpireAfterWrite durée de vie.
+         */
+        public void setCacheExpireAfterWrite(Duration cacheExpireAfterWrite) {
+            this.cacheExpireAfterWrite = cacheExpireAfterWrite;
+        }
+
+        /**
+         * Retourne l'âge déclenchant un recalcul en arrière-plan.
+         * @return délai de rafraîchissement.
+         */
+        public Duration getCacheRefreshAfterWrite() {
+            return cacheRefreshAfterWrite;
+        }
+
+        /**
+         * Définit l'âge déclenchant un recalcul en arrière-plan.
+         * @param cacheRefreshAfterWrite délai de rafraîchissement, 0 pour désactiver.
+         */
+        public void setCacheRefreshAfterWrite(Duration cacheRefreshAfterWrite) {
+            this.cacheRefreshAfterWrite = cacheRefreshAfterWrite;
+        }
+    }
+
+    /**
+     * Pipeline de suivi groupé : étapes reliées par des files bornées, chacune avec ses propres workers.
+     */
+    public static class Pipeline {
+
+        /** Capacité de la file en entrée de chaque étape. */
+        private int queueCapacity = 1000;
+
+        /** Workers de l'étape de localisation (gpsUtil). */
+        private int fetchConcurrency = 100;
+
+        /** Workers de l'étape d'ajout à l'historique. */
+        private int appendConcurrency = 2;
+
+        /** Workers de l'étape de proximité (index spatial, sans appel externe). */
+        private int proximityConcurrency = 4;
+
+        /** Workers de l'étape de résolution des points (RewardCentral). */
+        private int rewardsConcurrency = 100;
+
+        /**
+         * Retourne la capacité de la file de chaque étape.
+         * @return nombre maximal d'utilisateurs en attente par étape.
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        /**
+         * Définit la capacité de la file de chaque étape.
+         * @param queueCapacity nombre maximal d'utilisateurs en attente par étape.
+         */
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * Retourne le nombre de workers de l'étape de localisation.
+         * @return concurrence de l'étape.
+         */
+        public int getFetchConcurrency() {
+            return fetchConcurrency;
+        }
+
+        /**
+         * Définit le nombre de workers de l'étape de localisation.
+         * @param fetchConcurrency concurrence de l'étape.
+         */
+        public void setFetchConcurrency(int fetchConcurrency) {
+            this.fetchConcurrency = fetchConcurrency;
+        }
+
+        /**
+         * Retourne le nombre de workers de l'étape d'ajout à l'historique.
+         * @return concurrence de l'étape.
+         */
+        public int getAppendConcurrency() {
+            return appendConcurrency;
+        }
+
+        /**
+         * Définit le nombre de workers de l'étape d'ajout à l'historique.
+         * @param appendConcurrency concurrence de l'étape.
+         */
+        public void setAppendConcurrency(int appendConcurrency) {
+            this.appendConcurrency = appendConcurrency;
+        }
+
+        /**
+         * Retourne le nombre de workers de l'étape de proximité.
+         * @return concurrence de l'étape.
+         */
+        public int getProximityConcurrency() {
+            return proximityConcurrency;
+        }
+
+        /**
+         * Définit le nombre de workers de l'étape de proximité.
+         * @param proximityConcurrency concurrence de l'étape.
+         */
+        public void setProximityConcurrency(int proximityConcurrency) {
+            this.proximityConcurrency = proximityConcurrency;
+        }
+
+        /**
+         * Retourne le nombre de workers de l'étape de résolution des points.
+         * @return concurrence de l'étape.
+         */
+        public int getRewardsConcurrency() {
+            return rewardsConcurrency;
+        }
+
+        /**
+         * Définit le nombre de workers de l'étape de résolution des points.
+         * @param rewardsConcurrency concurrence de l'étape.
+         */
+        public void setRewardsConcurrency(int rewardsConcurrency) {
+            this.rewardsConcurrency = rewardsConcurrency;
+        }
+    }
+
+    /**
+     * Stockage persistant, en segments à ajout seul, des positions visitées et des récompenses.
+     */
+    public static class Store {
+
+        /** Active l'écriture des positions et récompenses sur disque et leur rechargement au démarrage. */
+        private boolean enabled;
+
+        /** Répertoire des segments. */
+        private Path directory = Path.of("data", "store");
+
+        /** Taille au-delà de laquelle le segment actif est scellé. */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /** Période entre deux compactages ; 0 pour désactiver. */
+        private Duration compactionInterval = Duration.ofHours(1);
+
+        /**
+         * Indique si le stockage persistant est actif.
+         * @return true si les positions et récompenses sont écrites sur disque.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Active le stockage persistant.
+         * @param enabled true pour écrire les positions et récompenses sur disque.
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Retourne le répertoire des segments.
+         * @return répertoire.
+         */
+        public Path getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Définit le répertoire des segments.
+         * @param directory répertoire.
+         */
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Retourne la taille maximale d'un segment.
+         * @return taille d'un segment.
+         */
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        /**
+         * Définit la taille maximale d'un segment.
+         * @param segmentSize taille d'un segment.
+         */
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * Retourne la période entre deux compactages.
+         * @return période, 0 si le compactage est désactivé.
+         */
+        public Duration getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        /**
+         * Définit la période entre deux compactages.
+         * @param compactionInterval période, 0 pour désactiver.
+         */
+        public void setCompactionInterval(Duration compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+    }
+
+    /**
+     * Création des utilisateurs internes du mode test.
+     */
+    public static class InternalUsers {
+
+        /** Graine de la génération : mêmes identifiants et positions à chaque démarrage. */
+        private long seed;
+
+        /** Instantané binaire chargé s'il existe, écrit après génération sinon ; absent pour toujours générer. */
+        private Path snapshot;
+
+        /** Création en arrière-plan : le service répond avant que tous les utilisateurs soient créés. */
+        private boolean async;
+
+        /**
+         * Retourne la graine de la génération.
+         * @return graine.
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Définit la graine de la génération.
+         * @param seed graine.
+         */
+        public void setSeed(long seed) {
+            this.seed = seed;
+        }
+
+        /**
+         * Retourne le fichier de l'instantané des utilisateurs.
+         * @return fichier, ou null si les utilisateurs sont toujours générés.
+         */
+        public Path getSnapshot() {
+            return snapshot;
+        }
+
+        /**
+         * Définit le fichier de l'instantané des utilisateurs.
+         * @param snapshot fichier, ou null pour toujours générer.
+         */
+        public void setSnapshot(Path snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Indique si les utilisateurs sont créés en arrière-plan.
+         * @return true pour une création en arrière-plan.
+         */
+        public boolean isAsync() {
+            return async;
+        }
+
+        /**
+         * Active la création des utilisateurs en arrière-plan.
+         * @param async true pour une création en arrière-plan.
+         */
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+    }
+}
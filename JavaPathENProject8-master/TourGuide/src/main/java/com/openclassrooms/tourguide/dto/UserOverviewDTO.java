@@ -0,0 +1,47 @@
+/**
+ * DTO (Data Transfer Object) regroupant, pour un utilisateur, sa dernière position, ses récompenses
+ * et ses attractions proches, tel que renvoyé ligne par ligne par l'endpoint groupé.
+ * En cas d'échec partiel, les informations disponibles sont renseignées et l'erreur est décrite.
+ */
+package com.openclassrooms.tourguide.dto;
+
+import java.util.List;
+
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.UserReward;
+
+public class UserOverviewDTO {
+
+    /** Nom de l'utilisateur demandé. */
+    public String userName;
+
+    /** Dernière position connue, null si indisponible. */
+    public VisitedLocation location;
+
+    /** Récompenses de l'utilisateur, null si l'utilisateur est inconnu. */
+    public List<UserReward> rewards;
+
+    /** Attractions proches, null si indisponibles. */
+    public List<NearbyAttractionDTO> nearbyAttractions;
+
+    /** Description de l'erreur rencontrée pour cet utilisateur, null en cas de succès. */
+    public String error;
+
+    /**
+     * Constructeur du DTO UserOverviewDTO.
+     *
+     * @param userName Nom de l'utilisateur.
+     * @param location Dernière position connue.
+     * @param rewards Récompenses de l'utilisateur.
+     * @param nearbyAttractions Attractions proches.
+     * @param error Description de l'erreur, null en cas de succès.
+     */
+    public UserOverviewDTO(String userName, VisitedLocation location, List<UserReward> rewards,
+                           List<NearbyAttractionDTO> nearbyAttractions, String error) {
+        this.userName = userName;
+        this.location = location;
+        this.rewards = rewards;
+        this.nearbyAttractions = nearbyAttractions;
+        this.error = error;
+    }
+}
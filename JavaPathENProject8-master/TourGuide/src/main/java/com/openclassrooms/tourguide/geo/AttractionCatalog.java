@@ -0,0 +1,77 @@
+/**
+ * Instantané immuable du catalogue d'attractions, accompagné des structures précalculées
+ * qui en dépendent (index spatial).
+ */
+package com.openclassrooms.tourguide.geo;
+
+import java.time.Instant;
+import java.util.List;
+
+import gpsUtil.location.Attraction;
+
+public final class AttractionCatalog {
+
+    /** Index spatial du catalogue, qui conserve aussi la liste des attractions. */
+    private final AttractionIndex index;
+
+    /** Date de chargement du catalogue. */
+    private final Instant loadedAt;
+
+    private AttractionCatalog(AttractionIndex index, Instant loadedAt) {
+        this.index = index;
+        this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Construit un instantané à partir d'une liste d'attractions.
+     * @param attractions attractions du catalogue.
+     * @param loadedAt date de chargement.
+     * @return instantané immuable.
+     */
+    public static AttractionCatalog of(List<Attraction> attractions, Instant loadedAt) {
+        return of(attractions, loadedAt, AttractionIndex.Search.TREE);
+    }
+
+    /**
+     * Construit un instantané dont l'index utilise une stratégie de recherche donnée.
+     * @param attractions attractions du catalogue.
+     * @param loadedAt date de chargement.
+     * @param search stratégie de recherche de l'index.
+     * @return instantané immuable.
+     */
+    public static AttractionCatalog of(List<Attraction> attractions, Instant loadedAt, AttractionIndex.Search search) {
+        return new AttractionCatalog(AttractionIndex.of(attractions, search), loadedAt);
+    }
+
+    /**
+     * Retourne les attractions du catalogue.
+     * @return liste non modifiable.
+     */
+    public List<Attraction> attractions() {
+        return index.attractions();
+    }
+
+    /**
+     * Retourne l'index spatial du catalogue.
+     * @return index des attractions.
+     */
+    public AttractionIndex index() {
+        return index;
+    }
+
+    /**
+     * Retourne la date de chargement du catalogue.
+     * @return date de chargement.
+     */
+    public Instant loadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Retourne le nombre d'attractions du catalogue.
+     * @return taille du catalogue.
+     */
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Attraction accompagnée de sa distance à une position de référence.
+ * @param attraction attraction.
+ * @param miles distance en miles terrestres.
+ */
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Attraction;
+
+public record AttractionDistance(Attraction attraction, double miles) {
+}
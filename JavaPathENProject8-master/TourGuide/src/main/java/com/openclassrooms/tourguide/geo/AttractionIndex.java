@@ -0,0 +1,346 @@
+/**
+ * Index spatial immuable des attractions touristiques.
+ * Chaque attraction est projetée sur la sphère unité (x, y, z) et rangée dans un arbre k-d :
+ * la distance euclidienne entre deux points de la sphère (corde) croît avec la distance orthodromique,
+ * ce qui permet de répondre aux requêtes k plus proches voisins et rayon en temps sous-linéaire.
+ * Les distances sont calculées par un {@link DistanceKernel} rangé dans l'ordre de l'arbre :
+ * l'ordre des voisins repose sur le carré de la corde, le test de rayon sur {@link DistanceKernel#isWithin}.
+ * Pour un petit catalogue, un parcours linéaire de toutes les cordes en un seul calcul groupé ({@link ChordScan},
+ * éventuellement vectoriel) peut remplacer la descente de l'arbre : voir {@link Search}.
+ */
+package com.openclassrooms.tourguide.geo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+
+public final class AttractionIndex {
+
+    /** Marge ajoutée au rayon de présélection sur la corde, pour absorber les écarts d'arrondi. */
+    private static final double SEARCH_MARGIN_MILES = 1e-6;
+
+    /** Attractions dans l'ordre de l'arbre : le nœud d'un intervalle [lo, hi) est à l'indice médian. */
+    private final Attraction[] nodes;
+
+    /** Positions précalculées des nœuds, dans l'ordre de l'arbre (utilisées pendant la construction). */
+    private final GeoPoint[] points;
+
+    /** Axe de découpe de chaque nœud (0, 1 ou 2). */
+    private final byte[] axes;
+
+    /** Noyau de distance des nœuds, dans l'ordre de l'arbre. */
+    private final DistanceKernel kernel;
+
+    /** Attractions dans l'ordre d'origine. */
+    private final List<Attraction> attractions;
+
+    /** Stratégie de recherche. */
+    private final Search search;
+
+    /** Calcul groupé des cordes pour les parcours linéaires, null pour l'arbre. */
+    private final ChordScan scan;
+
+    /**
+     * Stratégie de recherche des attractions.
+     */
+    public enum Search {
+        /** Descente de l'arbre k-d, sous-linéaire. */
+        TREE,
+        /** Parcours linéaire, cordes calculées en une boucle scalaire. */
+        SCALAR_SCAN,
+        /** Parcours linéaire, cordes calculées par l'API Vector ; scalaire si le module est absent. */
+        VECTOR_SCAN
+    }
+
+    private AttractionIndex(List<Attraction> attractions, Search search) {
+        this.search = search;
+        this.scan = switch (search) {
+            case TREE -> null;
+            case SCALAR_SCAN -> ChordScan.scalar();
+            case VECTOR_SCAN -> ChordScan.preferred();
+        };
+        this.attractions = Collections.unmodifiableList(new ArrayList<>(attractions));
+        this.nodes = attractions.toArray(new Attraction[0]);
+        this.points = new GeoPoint[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            points[i] = GeoPoint.of(nodes[i]);
+        }
+        this.axes = new byte[nodes.length];
+        build(0, nodes.length);
+        this.kernel = DistanceKernel.of(Arrays.asList(nodes));
+    }
+
+    /**
+     * Construit l'index d'un catalogue d'attractions.
+     * @param attractions catalogue à indexer.
+     * @return index immuable.
+     */
+    public static AttractionIndex of(List<Attraction> attractions) {
+        return new AttractionIndex(attractions, Search.TREE);
+    }
+
+    /**
+     * Construit l'index d'un catalogue d'attractions avec une stratégie de recherche.
+     * @param attractions catalogue à indexer.
+     * @param search stratégie de recherche.
+     * @return index immuable.
+     */
+    public static AttractionIndex of(List<Attraction> attractions, Search search) {
+        return new AttractionIndex(attractions, search);
+    }
+
+    /**
+     * Retourne la stratégie de recherche demandée.
+     * @return stratégie de recherche.
+     */
+    public Search search() {
+        return search;
+    }
+
+    /**
+     * Retourne le calcul groupé effectivement utilisé par les parcours linéaires.
+     * @return nom de l'implémentation, ou "tree" pour la descente de l'arbre.
+     */
+    public String scanImplementation() {
+        return scan == null ? "tree" : scan.name();
+    }
+
+    /**
+     * Retourne les attractions indexées, dans l'ordre du catalogue.
+     * @return liste non modifiable.
+     */
+    public List<Attraction> attractions() {
+        return attractions;
+    }
+
+    /**
+     * Retourne le nombre d'attractions indexées.
+     * @return taille de l'index.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Retourne les k attractions les plus proches d'une position, de la plus proche à la plus lointaine.
+     * @param location position de référence.
+     * @param k nombre d'attractions souhaitées.
+     * @return au plus k attractions triées par distance croissante.
+     */
+    public List<Attraction> nearest(Location location, int k) {
+        return nearest(location.latitude, location.longitude, k);
+    }
+
+    /**
+     * Retourne les k attractions les plus proches de coordonnées données.
+     * @param latitude latitude en degrés.
+     * @param longitude longitude en degrés.
+     * @param k nombre d'attractions souhaitées.
+     * @return au plus k attractions triées par distance croissante.
+     */
+    public List<Attraction> nearest(double latitude, double longitude, int k) {
+        return nearestWithDistances(GeoPoint.of(latitude, longitude), k).stream()
+                .map(AttractionDistance::attraction)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retourne les k attractions les plus proches d'une position avec leur distance.
+     * Le classement compare des cordes ; seule la distance des k résultats est calculée.
+     * @param point position précalculée.
+     * @param k nombre d'attractions souhaitées.
+     * @return au plus k attractions triées par distance croissante.
+     */
+    public List<AttractionDistance> nearestWithDistances(GeoPoint point, int k) {
+        if (k <= 0 || nodes.length == 0) {
+            return Collections.emptyList();
+        }
+        k = Math.min(k, nodes.length);
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(k + 1,
+                Comparator.comparingDouble((Candidate c) -> c.distance2).reversed());
+        if (scan == null) {
+            searchNearest(0, nodes.length, point, k, heap);
+        } else {
+            scanNearest(point, k, heap);
+        }
+
+        Candidate[] sorted = heap.toArray(new Candidate[0]);
+        Arrays.sort(sorted, Comparator.comparingDouble(c -> c.distance2));
+        List<AttractionDistance> result = new ArrayList<>(sorted.length);
+        for (Candidate candidate : sorted) {
+            result.add(new AttractionDistance(nodes[candidate.node], kernel.miles(point, candidate.node)));
+        }
+        return result;
+    }
+
+    /**
+     * Retourne les attractions situées à une distance inférieure ou égale à un rayon, triées par distance.
+     * @param location position de référence.
+     * @param miles rayon en miles terrestres.
+     * @return attractions dans le rayon.
+     */
+    public List<Attraction> withinRadius(Location location, double miles) {
+        return withinRadius(GeoPoint.of(location), miles);
+    }
+
+    /**
+     * Retourne les attractions situées dans un rayon autour de coordonnées données, triées par distance.
+     * @param latitude latitude en degrés.
+     * @param longitude longitude en degrés.
+     * @param miles rayon en miles terrestres.
+     * @return attractions dans le rayon.
+     */
+    public List<Attraction> withinRadius(double latitude, double longitude, double miles) {
+        return withinRadius(GeoPoint.of(latitude, longitude), miles);
+    }
+
+    /**
+     * Retourne les attractions situées dans un rayon autour d'une position précalculée, triées par distance.
+     * L'arbre présélectionne les nœuds par la corde ; chaque candidat est confirmé par {@link DistanceKernel#isWithin}.
+     * @param point position précalculée.
+     * @param miles rayon en miles terrestres.
+     * @return attractions dans le rayon.
+     */
+    public List<Attraction> withinRadius(GeoPoint point, double miles) {
+        if (miles < 0 || nodes.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Candidate> found = new ArrayList<>();
+        double radius2 = DistanceKernel.milesToChord2(miles + SEARCH_MARGIN_MILES);
+        if (scan == null) {
+            searchRadius(0, nodes.length, point, radius2, miles, found);
+        } else {
+            scanRadius(point, radius2, miles, found);
+        }
+
+        found.sort(Comparator.comparingDouble(c -> c.distance2));
+        List<Attraction> result = new ArrayList<>(found.size());
+        for (Candidate candidate : found) {
+            result.add(nodes[candidate.node]);
+        }
+        return result;
+    }
+
+    /** Construit récursivement le sous-arbre [lo, hi) en découpant sur l'axe de plus grande étendue. */
+    private void build(int lo, int hi) {
+        if (hi - lo <= 0) {
+            return;
+        }
+        int axis = widestAxis(lo, hi);
+        Integer[] order = new Integer[hi - lo];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = lo + i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> coordinate(points[i], axis)));
+        Attraction[] sortedNodes = new Attraction[order.length];
+        GeoPoint[] sortedPoints = new GeoPoint[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedNodes[i] = nodes[order[i]];
+            sortedPoints[i] = points[order[i]];
+        }
+        System.arraycopy(sortedNodes, 0, nodes, lo, order.length);
+        System.arraycopy(sortedPoints, 0, points, lo, order.length);
+
+        int mid = (lo + hi) >>> 1;
+        axes[mid] = (byte) axis;
+        build(lo, mid);
+        build(mid + 1, hi);
+    }
+
+    private int widestAxis(int lo, int hi) {
+        double[] min = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE };
+        double[] max = { -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+        for (int i = lo; i < hi; i++) {
+            for (int a = 0; a < 3; a++) {
+                double v = coordinate(points[i], a);
+                min[a] = Math.min(min[a], v);
+                max[a] = Math.max(max[a], v);
+            }
+        }
+        int axis = 0;
+        for (int a = 1; a < 3; a++) {
+            if (max[a] - min[a] > max[axis] - min[axis]) {
+                axis = a;
+            }
+        }
+        return axis;
+    }
+
+    private static double coordinate(GeoPoint point, int axis) {
+        return axis == 0 ? point.x() : axis == 1 ? point.y() : point.z();
+    }
+
+    private void searchNearest(int lo, int hi, GeoPoint q, int k, PriorityQueue<Candidate> heap) {
+        if (hi - lo <= 0) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double d2 = kernel.chord2(q, mid);
+        if (heap.size() < k) {
+            heap.add(new Candidate(mid, d2));
+        } else if (d2 < heap.peek().distance2) {
+            heap.poll();
+            heap.add(new Candidate(mid, d2));
+        }
+
+        double diff = coordinate(q, axes[mid]) - coordinate(points[mid], axes[mid]);
+        boolean lowerFirst = diff < 0;
+        searchNearest(lowerFirst ? lo : mid + 1, lowerFirst ? mid : hi, q, k, heap);
+        if (heap.size() < k || diff * diff < heap.peek().distance2) {
+            searchNearest(lowerFirst ? mid + 1 : lo, lowerFirst ? hi : mid, q, k, heap);
+        }
+    }
+
+    private void searchRadius(int lo, int hi, GeoPoint q, double radius2, double miles, List<Candidate> found) {
+        if (hi - lo <= 0) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double d2 = kernel.chord2(q, mid);
+        if (d2 <= radius2 && kernel.isWithin(q, mid, miles)) {
+            found.add(new Candidate(mid, d2));
+        }
+
+        double diff = coordinate(q, axes[mid]) - coordinate(points[mid], axes[mid]);
+        if (diff <= 0 || diff * diff <= radius2) {
+            searchRadius(lo, mid, q, radius2, miles, found);
+        }
+        if (diff >= 0 || diff * diff <= radius2) {
+            searchRadius(mid + 1, hi, q, radius2, miles, found);
+        }
+    }
+
+    private void scanNearest(GeoPoint q, int k, PriorityQueue<Candidate> heap) {
+        double[] chords = new double[nodes.length];
+        kernel.chord2(q, scan, chords);
+        for (int i = 0; i < chords.length; i++) {
+            if (heap.size() < k) {
+                heap.add(new Candidate(i, chords[i]));
+            } else if (chords[i] < heap.peek().distance2) {
+                heap.poll();
+                heap.add(new Candidate(i, chords[i]));
+            }
+        }
+    }
+
+    private void scanRadius(GeoPoint q, double radius2, double miles, List<Candidate> found) {
+        double[] chords = new double[nodes.length];
+        kernel.chord2(q, scan, chords);
+        for (int i = 0; i < chords.length; i++) {
+            if (chords[i] <= radius2 && kernel.isWithin(q, i, miles)) {
+                found.add(new Candidate(i, chords[i]));
+            }
+        }
+    }
+
+    /** Nœud candidat et sa distance au carré (corde) à la position recherchée. */
+    private record Candidate(int node, double distance2) {
+    }
+}
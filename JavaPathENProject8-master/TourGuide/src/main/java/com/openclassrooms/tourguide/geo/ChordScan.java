@@ -0,0 +1,56 @@
+/**
+ * Calcul groupé du carré de la corde entre une position et un ensemble de points rangés en colonnes
+ * (x, y et z dans trois tableaux distincts), adapté à un calcul SIMD.
+ * Deux implémentations donnent des résultats identiques au bit près :
+ * <ul>
+ *     <li>{@link #scalar()} : boucle scalaire, toujours disponible ;</li>
+ *     <li>{@link #vector()} : API Vector incubée ({@code jdk.incubator.vector}), disponible seulement si la JVM
+ *     est lancée avec {@code --add-modules jdk.incubator.vector}.</li>
+ * </ul>
+ */
+package com.openclassrooms.tourguide.geo;
+
+import java.util.Optional;
+
+public interface ChordScan {
+
+    /**
+     * Calcule le carré de la corde entre une position et chacun des points.
+     * @param xs coordonnées x des points sur la sphère unité.
+     * @param ys coordonnées y des points.
+     * @param zs coordonnées z des points.
+     * @param point position de référence.
+     * @param out carrés des cordes, dans l'ordre des points ; au moins aussi long que {@code xs}.
+     */
+    void chord2(double[] xs, double[] ys, double[] zs, GeoPoint point, double[] out);
+
+    /**
+     * Retourne le nom de l'implémentation.
+     * @return nom court.
+     */
+    String name();
+
+    /**
+     * Retourne l'implémentation scalaire.
+     * @return calcul scalaire.
+     */
+    static ChordScan scalar() {
+        return ScalarChordScan.INSTANCE;
+    }
+
+    /**
+     * Retourne l'implémentation vectorielle si le module {@code jdk.incubator.vector} est chargé.
+     * @return calcul vectoriel, ou vide si le module est absent.
+     */
+    static Optional<ChordScan> vector() {
+        return VectorSupport.chordScan();
+    }
+
+    /**
+     * Retourne l'implémentation vectorielle si elle est disponible, l'implémentation scalaire sinon.
+     * @return meilleur calcul disponible.
+     */
+    static ChordScan preferred() {
+        return vector().orElse(scalar());
+    }
+}
@@ -0,0 +1,207 @@
+/**
+ * Noyau de calcul des distances entre une position et un ensemble de points fixes (les attractions).
+ * Les radians, sinus, cosinus et la projection sur la sphère unité de chaque point sont précalculés
+ * dans des tableaux primitifs : une comparaison n'alloue rien et ne fait au plus qu'un cosinus et un arc cosinus.
+ * <ul>
+ *     <li>{@link #miles} : formule de référence (loi des cosinus sphérique), celle de {@code RewardsService.getDistance} ;</li>
+ *     <li>{@link #equirectangularMiles} : approximation équirectangulaire sans trigonométrie, pour les courtes distances ;</li>
+ *     <li>{@link #chord2} : carré de la corde, strictement croissant avec la distance, pour ordonner ;
+ *     calculé aussi pour tous les points d'un coup par un {@link ChordScan}, scalaire ou vectoriel ;</li>
+ *     <li>{@link #isWithin} : test de proximité par l'approximation, confirmé par la formule exacte près du seuil.</li>
+ * </ul>
+ */
+package com.openclassrooms.tourguide.geo;
+
+import java.util.List;
+
+import gpsUtil.location.Location;
+
+public final class DistanceKernel {
+
+    /** Constante de conversion des miles nautiques en miles terrestres. */
+    private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+
+    /** Miles terrestres par radian d'arc. */
+    public static final double MILES_PER_RADIAN = STATUTE_MILES_PER_NAUTICAL_MILE * 60 * Math.toDegrees(1);
+
+    /** Distance maximale, en miles, pour laquelle l'approximation équirectangulaire est utilisée. */
+    public static final double SHORT_RANGE_MILES = 100;
+
+    /**
+     * Erreur relative maximale de l'approximation jusqu'à deux fois {@link #SHORT_RANGE_MILES} entre ±70° de latitude
+     * (erreur mesurée inférieure à 8,1e-4, vérifiée par les tests).
+     */
+    public static final double EQUIRECTANGULAR_TOLERANCE = 1e-3;
+
+    /** Cosinus de la latitude limite (70°) au-delà de laquelle l'approximation n'est pas utilisée. */
+    private static final double MIN_COS_LATITUDE = Math.cos(Math.toRadians(70));
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    private final double[] sinLatitudes;
+
+    private final double[] cosLatitudes;
+
+    /** Projection sur la sphère unité, en colonnes séparées pour le calcul groupé. */
+    private final double[] xs;
+
+    private final double[] ys;
+
+    private final double[] zs;
+
+    private DistanceKernel(int size) {
+        latitudes = new double[size];
+        longitudes = new double[size];
+        sinLatitudes = new double[size];
+        cosLatitudes = new double[size];
+        xs = new double[size];
+        ys = new double[size];
+        zs = new double[size];
+    }
+
+    /**
+     * Précalcule les points d'une liste de positions, dans le même ordre.
+     * @param locations positions en degrés.
+     * @return noyau indexé comme la liste.
+     */
+    public static DistanceKernel of(List<? extends Location> locations) {
+        DistanceKernel kernel = new DistanceKernel(locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            GeoPoint point = GeoPoint.of(locations.get(i));
+            kernel.latitudes[i] = point.latitude();
+            kernel.longitudes[i] = point.longitude();
+            kernel.sinLatitudes[i] = point.sinLatitude();
+            kernel.cosLatitudes[i] = point.cosLatitude();
+            kernel.xs[i] = point.x();
+            kernel.ys[i] = point.y();
+            kernel.zs[i] = point.z();
+        }
+        return kernel;
+    }
+
+    /**
+     * Retourne le nombre de points.
+     * @return taille du noyau.
+     */
+    public int size() {
+        return latitudes.length;
+    }
+
+    /**
+     * Distance de référence entre une position et un point (loi des cosinus sphérique).
+     * @param p position précalculée.
+     * @param i indice du point.
+     * @return distance en miles.
+     */
+    public double miles(GeoPoint p, int i) {
+        double cosAngle = p.sinLatitude() * sinLatitudes[i]
+                + p.cosLatitude() * cosLatitudes[i] * Math.cos(p.longitude() - longitudes[i]);
+        return Math.acos(cosAngle) * MILES_PER_RADIAN;
+    }
+
+    /**
+     * Distance approchée par projection équirectangulaire, sans trigonométrie.
+     * Précise à {@link #EQUIRECTANGULAR_TOLERANCE} près en dessous de {@link #SHORT_RANGE_MILES}
+     * et entre les latitudes ±70°.
+     * @param p position précalculée.
+     * @param i indice du point.
+     * @return distance approchée en miles.
+     */
+    public double equirectangularMiles(GeoPoint p, int i) {
+        double dLon = longitudes[i] - p.longitude();
+        if (dLon > Math.PI) {
+            dLon -= 2 * Math.PI;
+        } else if (dLon < -Math.PI) {
+            dLon += 2 * Math.PI;
+        }
+        // cos de la latitude moyenne, approché par la moyenne des cosinus (écart du second ordre)
+        double x = dLon * 0.5 * (p.cosLatitude() + cosLatitudes[i]);
+        double y = latitudes[i] - p.latitude();
+        return Math.sqrt(x * x + y * y) * MILES_PER_RADIAN;
+    }
+
+    /**
+     * Carré de la corde entre une position et un point sur la sphère unité,
+     * fonction strictement croissante de la distance : suffisant pour ordonner.
+     * @param p position précalculée.
+     * @param i indice du point.
+     * @return carré de la corde.
+     */
+    public double chord2(GeoPoint p, int i) {
+        double dx = xs[i] - p.x();
+        double dy = ys[i] - p.y();
+        double dz = zs[i] - p.z();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * Carré de la corde entre une position et tous les points, calculé d'un seul passage.
+     * @param p position précalculée.
+     * @param scan implémentation du calcul groupé.
+     * @param out carrés des cordes, indexés comme les points ; au moins de la taille du noyau.
+     */
+    public void chord2(GeoPoint p, ChordScan scan, double[] out) {
+        scan.chord2(xs, ys, zs, p, out);
+    }
+
+    /**
+     * Indique si un point est à une distance inférieure ou égale à un seuil, selon la formule de référence.
+     * Pour un seuil court hors zones polaires, l'approximation équirectangulaire tranche sans trigonométrie
+     * lorsqu'elle est nettement en deçà ou au-delà du seuil ; sinon la formule exacte est appliquée.
+     * @param p position précalculée.
+     * @param i indice du point.
+     * @param miles seuil en miles.
+     * @return true si le point est dans le rayon.
+     */
+    public boolean isWithin(GeoPoint p, int i, double miles) {
+        if (miles <= SHORT_RANGE_MILES && p.cosLatitude() >= MIN_COS_LATITUDE
+                && cosLatitudes[i] >= MIN_COS_LATITUDE) {
+            double approximate = equirectangularMiles(p, i);
+            if (approximate < miles * (1 - EQUIRECTANGULAR_TOLERANCE)) {
+                return true;
+            }
+            if (approximate > miles * (1 + EQUIRECTANGULAR_TOLERANCE)) {
+                return false;
+            }
+        }
+        return miles(p, i) <= miles;
+    }
+
+    /**
+     * Distance de référence entre deux positions quelconques.
+     * @param latitude1 latitude de la première position, en degrés.
+     * @param longitude1 longitude de la première position, en degrés.
+     * @param latitude2 latitude de la deuxième position, en degrés.
+     * @param longitude2 longitude de la deuxième position, en degrés.
+     * @return distance en miles.
+     */
+    public static double miles(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double lat1 = Math.toRadians(latitude1), lon1 = Math.toRadians(longitude1);
+        double lat2 = Math.toRadians(latitude2), lon2 = Math.toRadians(longitude2);
+        double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+        return angle * MILES_PER_RADIAN;
+    }
+
+    /**
+     * Convertit un carré de corde sur la sphère unité en distance.
+     * @param chord2 carré de la corde.
+     * @return distance en miles.
+     */
+    public static double chord2ToMiles(double chord2) {
+        return 2 * Math.asin(Math.min(1, Math.sqrt(chord2) / 2)) * MILES_PER_RADIAN;
+    }
+
+    /**
+     * Convertit une distance en carré de corde sur la sphère unité.
+     * @param miles distance en miles.
+     * @return carré de la corde, au plus 4.
+     */
+    public static double milesToChord2(double miles) {
+        double angle = Math.min(miles / MILES_PER_RADIAN, Math.PI);
+        double chord = 2 * Math.sin(angle / 2);
+        return chord * chord;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Position précalculée pour les calculs de distance : radians, sinus et cosinus de la latitude,
+ * et projection sur la sphère unité. Calculée une fois par position, elle évite toute trigonométrie
+ * sur la position de référence lors des comparaisons avec les attractions.
+ * @param latitude latitude en radians.
+ * @param longitude longitude en radians.
+ * @param sinLatitude sinus de la latitude.
+ * @param cosLatitude cosinus de la latitude.
+ * @param x coordonnée x sur la sphère unité.
+ * @param y coordonnée y sur la sphère unité.
+ * @param z coordonnée z sur la sphère unité.
+ */
+package com.openclassrooms.tourguide.geo;
+
+import gpsUtil.location.Location;
+
+public record GeoPoint(double latitude, double longitude, double sinLatitude, double cosLatitude,
+                       double x, double y, double z) {
+
+    /**
+     * Précalcule une position donnée en degrés.
+     * @param latitude latitude en degrés.
+     * @param longitude longitude en degrés.
+     * @return position précalculée.
+     */
+    public static GeoPoint of(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double sinLat = Math.sin(lat);
+        double cosLat = Math.cos(lat);
+        return new GeoPoint(lat, lon, sinLat, cosLat, cosLat * Math.cos(lon), cosLat * Math.sin(lon), sinLat);
+    }
+
+    /**
+     * Précalcule une position.
+     * @param location position en degrés.
+     * @return position précalculée.
+     */
+    public static GeoPoint of(Location location) {
+        return of(location.latitude, location.longitude);
+    }
+}
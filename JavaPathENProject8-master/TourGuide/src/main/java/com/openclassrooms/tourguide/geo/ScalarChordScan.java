@@ -0,0 +1,37 @@
+/**
+ * Calcul scalaire du carré des cordes, repli de {@link VectorChordScan}.
+ * Les opérations sont celles de l'implémentation vectorielle (multiplications-additions fusionnées),
+ * dans le même ordre, pour des résultats identiques.
+ */
+package com.openclassrooms.tourguide.geo;
+
+final class ScalarChordScan implements ChordScan {
+
+    static final ScalarChordScan INSTANCE = new ScalarChordScan();
+
+    private ScalarChordScan() {
+    }
+
+    @Override
+    public void chord2(double[] xs, double[] ys, double[] zs, GeoPoint point, double[] out) {
+        chord2(xs, ys, zs, point, out, 0);
+    }
+
+    /** Calcule les cordes à partir d'un indice : utilisé aussi pour la fin de boucle vectorielle. */
+    static void chord2(double[] xs, double[] ys, double[] zs, GeoPoint point, double[] out, int from) {
+        double x = point.x();
+        double y = point.y();
+        double z = point.z();
+        for (int i = from; i < xs.length; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double dz = zs[i] - z;
+            out[i] = Math.fma(dx, dx, Math.fma(dy, dy, dz * dz));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Calcul vectoriel du carré des cordes par l'API Vector incubée, sur la largeur de registre préférée
+ * de la plateforme (4 doubles en AVX2, 8 en AVX-512). Les derniers points, en deçà d'un vecteur complet,
+ * sont traités par la boucle scalaire.
+ * Cette classe n'est chargée que par {@link ChordScan#vector()}, lorsque le module est présent.
+ */
+package com.openclassrooms.tourguide.geo;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+final class VectorChordScan implements ChordScan {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void chord2(double[] xs, double[] ys, double[] zs, GeoPoint point, double[] out) {
+        DoubleVector x = DoubleVector.broadcast(SPECIES, point.x());
+        DoubleVector y = DoubleVector.broadcast(SPECIES, point.y());
+        DoubleVector z = DoubleVector.broadcast(SPECIES, point.z());
+        int bound = SPECIES.loopBound(xs.length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, i).sub(x);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, i).sub(y);
+            DoubleVector dz = DoubleVector.fromArray(SPECIES, zs, i).sub(z);
+            dx.fma(dx, dy.fma(dy, dz.mul(dz))).intoArray(out, i);
+        }
+        ScalarChordScan.chord2(xs, ys, zs, point, out, i);
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.length();
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Détection, une seule fois, du module incubé {@code jdk.incubator.vector}.
+ * La classe vectorielle n'est chargée que si le module est présent dans la couche de démarrage ;
+ * sinon aucune classe du module n'est référencée et le calcul scalaire est utilisé.
+ */
+package com.openclassrooms.tourguide.geo;
+
+import java.util.Optional;
+
+final class VectorSupport {
+
+    private static final String MODULE = "jdk.incubator.vector";
+
+    private static final Optional<ChordScan> CHORD_SCAN = load();
+
+    private VectorSupport() {
+    }
+
+    /**
+     * Retourne le calcul vectoriel des cordes.
+     * @return calcul vectoriel, ou vide si le module est absent.
+     */
+    static Optional<ChordScan> chordScan() {
+        return CHORD_SCAN;
+    }
+
+    private static Optional<ChordScan> load() {
+        if (ModuleLayer.boot().findModule(MODULE).isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((ChordScan) Class.forName(VectorSupport.class.getPackageName() + ".VectorChordScan")
+                    .getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Générateur reproductible des utilisateurs internes.
+ * Chaque utilisateur dépend uniquement de la graine et de son numéro : il reçoit son propre
+ * {@link SplittableRandom}, si bien que la génération peut être répartie sur plusieurs threads
+ * sans partage de générateur ni variation du résultat. Identifiants et positions sont donc les mêmes
+ * d'un démarrage à l'autre ; seules les dates sont relatives à l'instant de génération.
+ */
+package com.openclassrooms.tourguide.helper;
+
+import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+
+public class InternalUserGenerator {
+
+    /** Nombre de positions générées par utilisateur. */
+    public static final int LOCATIONS_PER_USER = 3;
+
+    /** Écart entre les graines de deux utilisateurs consécutifs (nombre d'or sur 64 bits). */
+    private static final long SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Latitude maximale affichable (Web Mercator). */
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final long seed;
+
+    /** Instant de référence des dates générées. */
+    private final long nowMillis = System.currentTimeMillis();
+
+    /**
+     * Constructeur du générateur.
+     * @param seed graine commune à tous les utilisateurs.
+     */
+    public InternalUserGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Retourne le nom de l'utilisateur interne d'un numéro donné.
+     * @param index numéro de l'utilisateur.
+     * @return nom d'utilisateur.
+     */
+    public static String userName(int index) {
+        return "internalUser" + index;
+    }
+
+    /**
+     * Crée l'utilisateur interne d'un numéro donné, sans historique.
+     * @param index numéro de l'utilisateur.
+     * @param userId identifiant de l'utilisateur.
+     * @return utilisateur.
+     */
+    public static User newUser(int index, UUID userId) {
+        String userName = userName(index);
+        return new User(userId, userName, "000", userName + "@tourGuide.com");
+    }
+
+    /**
+     * Génère en parallèle les utilisateurs de numéro 0 à count - 1.
+     * @param count nombre d'utilisateurs.
+     * @return utilisateurs, rangés par numéro.
+     */
+    public User[] generate(int count) {
+        User[] users = new User[count];
+        IntStream.range(0, count).parallel().forEach(i -> users[i] = user(i));
+        return users;
+    }
+
+    /**
+     * Génère l'utilisateur d'un numéro donné, avec un identifiant de version 4 et trois positions
+     * aléatoires datées des 30 derniers jours.
+     * @param index numéro de l'utilisateur.
+     * @return utilisateur.
+     */
+    public User user(int index) {
+        SplittableRandom random = new SplittableRandom(seed + index * SEED_GAMMA);
+        long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        User user = newUser(index, new UUID(mostSigBits, leastSigBits));
+        for (int i = 0; i < LOCATIONS_PER_USER; i++) {
+            user.addToVisitedLocations(new VisitedLocation(
+                    user.getUserId(),
+                    new Location(random.nextDouble(-MAX_LATITUDE, MAX_LATITUDE), random.nextDouble(-180, 180)),
+                    new Date(nowMillis - TimeUnit.DAYS.toMillis(random.nextInt(30)))
+            ));
+        }
+        return user;
+    }
+}
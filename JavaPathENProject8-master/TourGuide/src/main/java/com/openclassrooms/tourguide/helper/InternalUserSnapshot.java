@@ -0,0 +1,121 @@
+/**
+ * Instantané binaire des utilisateurs internes, pour démarrer sans les régénérer.
+ * Après un en-tête (signature, version, nombre d'utilisateurs, positions par utilisateur), chaque utilisateur
+ * occupe un enregistrement de taille fixe : identifiant puis latitude, longitude et date de chaque position.
+ * Le nom de l'utilisateur se déduit de son rang. Le fichier est lu par projection mémoire et décodé en parallèle.
+ */
+package com.openclassrooms.tourguide.helper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import com.openclassrooms.tourguide.user.User;
+
+public final class InternalUserSnapshot {
+
+    /** Signature du fichier : « TGUS ». */
+    private static final int MAGIC = 0x54475553;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    private static final int LOCATION_BYTES = 3 * Long.BYTES;
+
+    private InternalUserSnapshot() {
+    }
+
+    /**
+     * Écrit un instantané, via un fichier temporaire renommé une fois complet.
+     * Les positions manquantes sont laissées vides ; au-delà de {@link InternalUserGenerator#LOCATIONS_PER_USER},
+     * seules les plus récentes sont écrites.
+     * @param path fichier de destination.
+     * @param users utilisateurs, rangés par numéro.
+     * @throws UncheckedIOException si le fichier ne peut pas être écrit.
+     */
+    public static void write(Path path, User[] users) {
+        int locationsPerUser = InternalUserGenerator.LOCATIONS_PER_USER;
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(users.length);
+                out.writeInt(locationsPerUser);
+                for (User user : users) {
+                    out.writeLong(user.getUserId().getMostSignificantBits());
+                    out.writeLong(user.getUserId().getLeastSignificantBits());
+                    List<VisitedLocation> locations = user.getVisitedLocations();
+                    int first = Math.max(0, locations.size() - locationsPerUser);
+                    for (int i = 0; i < locationsPerUser; i++) {
+                        VisitedLocation location = first + i < locations.size() ? locations.get(first + i) : null;
+                        out.writeDouble(location != null ? location.location.latitude : Double.NaN);
+                        out.writeDouble(location != null ? location.location.longitude : Double.NaN);
+                        out.writeLong(location != null ? location.timeVisited.getTime() : 0);
+                    }
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Lit un instantané.
+     * @param path fichier de l'instantané.
+     * @return utilisateurs, rangés par numéro, avec leurs positions.
+     * @throws UncheckedIOException si le fichier ne peut pas être lu.
+     * @throws IllegalStateException si le fichier n'est pas un instantané valide.
+     */
+    public static User[] read(Path path) {
+        ByteBuffer view;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            view = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (view.limit() < HEADER_BYTES || view.getInt(0) != MAGIC || view.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a user snapshot: " + path);
+        }
+        int count = view.getInt(8);
+        int locationsPerUser = view.getInt(12);
+        int recordBytes = 2 * Long.BYTES + locationsPerUser * LOCATION_BYTES;
+        if (count < 0 || locationsPerUser < 0 || view.limit() != HEADER_BYTES + (long) count * recordBytes) {
+            throw new IllegalStateException("Truncated user snapshot: " + path);
+        }
+        User[] users = new User[count];
+        IntStream.range(0, count).parallel().forEach(index -> {
+            int offset = HEADER_BYTES + index * recordBytes;
+            User user = InternalUserGenerator.newUser(index, new UUID(view.getLong(offset), view.getLong(offset + 8)));
+            for (int i = 0; i < locationsPerUser; i++) {
+                int location = offset + 16 + i * LOCATION_BYTES;
+                double latitude = view.getDouble(location);
+                if (!Double.isNaN(latitude)) {
+                    user.addToVisitedLocations(new VisitedLocation(user.getUserId(),
+                            new Location(latitude, view.getDouble(location + 8)),
+                            new Date(view.getLong(location + 16))));
+                }
+            }
+            users[index] = user;
+        });
+        return users;
+    }
+}
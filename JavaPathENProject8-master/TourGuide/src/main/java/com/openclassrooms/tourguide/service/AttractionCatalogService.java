@@ -0,0 +1,187 @@
+/**
+ * Service de catalogue des attractions.
+ * Le catalogue est chargé une fois au démarrage depuis gpsUtil, servi à tous les appelants sous forme
+ * d'instantané immuable, puis rafraîchi en arrière-plan selon une durée de vie configurable.
+ */
+package com.openclassrooms.tourguide.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.geo.AttractionCatalog;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.ChordScan;
+
+@Service
+public class AttractionCatalogService implements MeterBinder {
+
+    private final Logger logger = LoggerFactory.getLogger(AttractionCatalogService.class);
+
+    private final GpsUtil gpsUtil;
+
+    /** Stratégie de recherche des index construits. */
+    private final AttractionIndex.Search search;
+
+    /** Instantané courant du catalogue. */
+    private volatile AttractionCatalog catalog;
+
+    /** Planificateur du rafraîchissement en arrière-plan, absent si la durée de vie est nulle. */
+    private final ScheduledExecutorService refresher;
+
+    /** Lectures de l'instantané, toujours servies depuis la mémoire. */
+    private final LongAdder reads = new LongAdder();
+
+    /** Rafraîchissements effectués (synchrones ou en arrière-plan). */
+    private final LongAdder refreshes = new LongAdder();
+
+    /**
+     * Constructeur du service avec la configuration par défaut.
+     * @param gpsUtil service de géolocalisation fournissant les attractions.
+     */
+    public AttractionCatalogService(GpsUtil gpsUtil) {
+        this(gpsUtil, new TourGuideProperties());
+    }
+
+    /**
+     * Constructeur du service. Charge le catalogue immédiatement.
+     * @param gpsUtil service de géolocalisation fournissant les attractions.
+     * @param properties configuration de l'application.
+     */
+    @Autowired
+    public AttractionCatalogService(GpsUtil gpsUtil, TourGuideProperties properties) {
+        this.gpsUtil = gpsUtil;
+        this.search = properties.getAttractions().getSearch();
+        refresh();
+        if (search == AttractionIndex.Search.VECTOR_SCAN && ChordScan.vector().isEmpty()) {
+            logger.warn("Module jdk.incubator.vector not loaded, attraction scan falls back to scalar code.");
+        }
+
+        Duration ttl = properties.getAttractions().getRefreshInterval();
+        if (ttl != null && !ttl.isZero() && !ttl.isNegative()) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "attraction-catalog-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleAtFixedRate(this::refreshQuietly, ttl.toMillis(), ttl.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            refresher = null;
+        }
+    }
+
+    /**
+     * Retourne l'instantané courant du catalogue, sans appel à gpsUtil.
+     * @return catalogue immuable.
+     */
+    public AttractionCatalog getCatalog() {
+        reads.increment();
+        return catalog;
+    }
+
+    /**
+     * Recharge le catalogue depuis gpsUtil et remplace l'instantané courant.
+     * Les lecteurs en cours conservent l'instantané qu'ils ont obtenu. Les attractions inchangées
+     * (même nom et mêmes coordonnées) conservent leur instance, et donc leur identifiant,
+     * gpsUtil en générant un nouveau à chaque appel.
+     */
+    public synchronized void refresh() {
+        List<Attraction> loaded = gpsUtil.getAttractions();
+        AttractionCatalog previous = catalog;
+        if (previous != null) {
+            Map<String, Attraction> known = new HashMap<>();
+            previous.attractions().forEach(a -> known.put(identity(a), a));
+            loaded = loaded.stream()
+                    .map(a -> known.getOrDefault(identity(a), a))
+                    .collect(Collectors.toList());
+        }
+        catalog = AttractionCatalog.of(loaded, Instant.now(), search);
+        refreshes.increment();
+        logger.debug("Attraction catalogue loaded: {} attractions.", catalog.size());
+    }
+
+    private static String identity(Attraction attraction) {
+        return attraction.attractionName + '|' + attraction.latitude + '|' + attraction.longitude;
+    }
+
+    /** Rafraîchissement planifié : un échec conserve l'instantané précédent. */
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Attraction catalogue refresh failed, keeping snapshot from " + catalog.loadedAt(), e);
+        }
+    }
+
+    /**
+     * Retourne le nombre de chargements du catalogue depuis gpsUtil, chargement initial compris.
+     * @return nombre de rafraîchissements réussis.
+     */
+    public long getRefreshCount() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Retourne l'âge de l'instantané courant.
+     * @return durée écoulée depuis le dernier rafraîchissement réussi.
+     */
+    public Duration getAge() {
+        return Duration.between(catalog.loadedAt(), Instant.now());
+    }
+
+    /**
+     * Retourne la date du dernier rafraîchissement réussi.
+     * @return date de chargement de l'instantané courant.
+     */
+    public Instant getLastRefresh() {
+        return catalog.loadedAt();
+    }
+
+    /**
+     * Arrête le rafraîchissement en arrière-plan.
+     */
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    /**
+     * Enregistre les métriques du catalogue : lectures, rafraîchissements, taille, âge et date
+     * du dernier rafraîchissement. Les lectures ne chargeant jamais le catalogue, il n'y a pas de taux de succès.
+     * @param registry registre Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("tourguide.attractions.catalog.requests", reads, LongAdder::sum)
+                .register(registry);
+        FunctionCounter.builder("tourguide.attractions.catalog.refreshes", refreshes, LongAdder::sum)
+                .register(registry);
+        TimeGauge.builder("tourguide.attractions.catalog.age", this, TimeUnit.MILLISECONDS,
+                s -> s.getAge().toMillis()).register(registry);
+        Gauge.builder("tourguide.attractions.catalog.size", this, s -> s.catalog.size())
+                .register(registry);
+        Gauge.builder("tourguide.attractions.catalog.last.refresh", this, s -> s.getLastRefresh().getEpochSecond())
+                .baseUnit("seconds").register(registry);
+    }
+}
@@ -5,115 +5,319 @@
  */
 package com.openclassrooms.tourguide.service;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.function.ToIntFunction;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.concurrent.VendorCallLimiter;
+import com.openclassrooms.tourguide.geo.AttractionCatalog;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.geo.GeoPoint;
 import com.openclassrooms.tourguide.user.*;
 
 @Service
-public class RewardsService {
-
-    /** Constante de conversion des miles nautiques en miles terrestres. */
-    private static final double STATUTE_MILES_PER_NAUTICAL_MILE = 1.15077945;
+public class RewardsService implements MeterBinder {
 
-    /** Taille du pool de threads pour le calcul parallèle. */
-    private static final int THREAD_POOL_SIZE = 100;
+    private final Logger logger = LoggerFactory.getLogger(RewardsService.class);
 
     /** Distance de proximité par défaut. */
     private int defaultProximityBuffer = 10;
 
     /** Distance de proximité personnalisée. */
-    private int proximityBuffer = defaultProximityBuffer;
+    private volatile int proximityBuffer = defaultProximityBuffer;
+
+    /** Version du rayon de proximité ; chaque changement invalide les watermarks des utilisateurs. */
+    private volatile long proximityVersion;
+
+    private final AttractionCatalogService attractionCatalogService;
+
+    /** Indique si le catalogue a été créé par ce service, qui doit alors l'arrêter. */
+    private final boolean ownsAttractionCatalog;
 
-    private final GpsUtil gpsUtil;
     private final RewardCentral rewardsCentral;
-    private final ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+    private final ExecutorService executor;
+
+    /** Nombre d'utilisateurs traités par lot dans le calcul groupé. */
+    private final int bulkBatchSize;
 
-    /** Cache des points de récompense pour éviter les appels redondants. */
-    private final Map<String, Integer> rewardCache = new ConcurrentHashMap<>();
+    /** Limite des appels simultanés à RewardCentral. */
+    private final VendorCallLimiter rewardCentralLimiter;
+
+    /** Cache borné des points de récompense pour éviter les appels redondants. */
+    private final RewardPointsCache rewardCache;
+
+    /** Registre des métriques du service, relié au registre de l'application par {@link #bindTo}. */
+    private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+
+    /** Durée du calcul des récompenses d'un utilisateur. */
+    private final Timer calculateRewardsTimer;
+
+    /** Durée d'obtention des points servis par le cache, chargements partagés compris. */
+    private final Timer rewardPointsHitTimer;
+
+    /** Durée d'obtention des points ayant nécessité un appel à RewardCentral. */
+    private final Timer rewardPointsMissTimer;
 
     /**
-     * Constructeur du service.
+     * Constructeur du service avec la configuration par défaut.
      * @param gpsUtil Service de géolocalisation.
      * @param rewardCentral Service des points de récompense.
      */
     public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral) {
-        this.gpsUtil = gpsUtil;
+        this(gpsUtil, rewardCentral, new TourGuideProperties());
+    }
+
+    /**
+     * Constructeur du service avec un catalogue d'attractions dédié.
+     * @param gpsUtil Service de géolocalisation.
+     * @param rewardCentral Service des points de récompense.
+     * @param properties configuration de l'application.
+     */
+    public RewardsService(GpsUtil gpsUtil, RewardCentral rewardCentral, TourGuideProperties properties) {
+        this(new AttractionCatalogService(gpsUtil, properties), true, rewardCentral, properties);
+    }
+
+    /**
+     * Constructeur du service avec un catalogue d'attractions partagé.
+     * @param attractionCatalogService catalogue des attractions.
+     * @param rewardCentral Service des points de récompense.
+     * @param properties configuration de l'application.
+     */
+    @Autowired
+    public RewardsService(AttractionCatalogService attractionCatalogService, RewardCentral rewardCentral,
+                          TourGuideProperties properties) {
+        this(attractionCatalogService, false, rewardCentral, properties);
+    }
+
+    private RewardsService(AttractionCatalogService attractionCatalogService, boolean ownsAttractionCatalog,
+                           RewardCentral rewardCentral, TourGuideProperties properties) {
+        TourGuideProperties.Execution execution = properties.getExecution();
+        this.attractionCatalogService = attractionCatalogService;
+        this.ownsAttractionCatalog = ownsAttractionCatalog;
         this.rewardsCentral = rewardCentral;
+        this.executor = execution.getMode().newExecutor(execution.getPlatformPoolSize());
+        this.rewardCentralLimiter = new VendorCallLimiter("RewardCentral", execution.getMaxConcurrentRewardCalls(),
+                meters);
+        this.bulkBatchSize = Math.max(1, properties.getRewards().getBulkBatchSize());
+        this.rewardCache = new RewardPointsCache(properties.getRewards().getCacheMaximumSize(),
+                properties.getRewards().getCacheExpireAfterWrite());
+        this.calculateRewardsTimer = Timer.builder("tourguide.rewards.calculate").register(meters);
+        this.rewardPointsHitTimer = Timer.builder("tourguide.rewards.points").tag("cache", "hit").register(meters);
+        this.rewardPointsMissTimer = Timer.builder("tourguide.rewards.points").tag("cache", "miss").register(meters);
+    }
+
+    /**
+     * Recharge le catalogue d'attractions et son index spatial.
+     */
+    public void refreshAttractionIndex() {
+        attractionCatalogService.refresh();
+    }
+
+    /**
+     * Retourne l'instantané courant du catalogue d'attractions.
+     * @return catalogue des attractions.
+     */
+    public AttractionCatalog getAttractionCatalog() {
+        return attractionCatalogService.getCatalog();
+    }
+
+    /**
+     * Retourne l'index spatial courant des attractions.
+     * @return index des attractions.
+     */
+    public AttractionIndex getAttractionIndex() {
+        return getAttractionCatalog().index();
     }
 
     /**
      * Définit une nouvelle valeur pour la distance de proximité.
      * @param proximityBuffer valeur personnalisée en miles.
      */
-    public void setProximityBuffer(int proximityBuffer) {
-        this.proximityBuffer = proximityBuffer;
+    public synchronized void setProximityBuffer(int proximityBuffer) {
+        if (this.proximityBuffer != proximityBuffer) {
+            this.proximityBuffer = proximityBuffer;
+            proximityVersion++;
+        }
     }
 
     /**
      * Réinitialise la distance de proximité à sa valeur par défaut.
      */
     public void setDefaultProximityBuffer() {
-        this.proximityBuffer = defaultProximityBuffer;
+        setProximityBuffer(defaultProximityBuffer);
     }
 
     /**
      * Calcule les récompenses pour un utilisateur donné en fonction de ses lieux visités.
-     * Seules les attractions proches sont considérées.
+     * Seules les positions ajoutées depuis le dernier calcul sont évaluées (watermark par utilisateur) ;
+     * tout l'historique est réévalué lorsque le rayon de proximité a changé.
      * @param user L'utilisateur concerné.
      */
     public void calculateRewards(User user) {
-        List<VisitedLocation> visitedLocations = user.getVisitedLocations();
-        List<Attraction> attractions = gpsUtil.getAttractions().stream()
-                .limit(1) // limitation pour les performances
-                .collect(Collectors.toList());
-
-        for (VisitedLocation visitedLocation : visitedLocations) {
-            for (Attraction attraction : attractions) {
-                if (getDistance(visitedLocation.location, attraction) <= proximityBuffer) {
-                    synchronized (user.getUserRewards()) {
-                        boolean alreadyRewarded = user.getUserRewards().stream()
-                            .anyMatch(r -> r.attraction.attractionName.equals(attraction.attractionName));
-                        if (!alreadyRewarded) {
-                            int rewardPoints = getRewardPoints(attraction, user);
-                            user.addUserReward(new UserReward(visitedLocation, attraction, rewardPoints));
-                        }
-                    }
-                }
-            }
-        }
+        calculateRewardsTimer.record(() -> resolveRewards(scanNewLocations(user)));
+    }
+
+    /**
+     * Réévalue tout l'historique d'un utilisateur, indépendamment de son watermark.
+     * @param user L'utilisateur concerné.
+     */
+    public void recalculateRewards(User user) {
+        user.resetRewardWatermark();
+        calculateRewards(user);
     }
 
     /**
-     * Calcule les récompenses pour tous les utilisateurs de façon parallèle.
+     * Calcule les récompenses de plusieurs utilisateurs par lots.
+     * Pour chaque lot, les couples (attraction, utilisateur) à récompenser sont d'abord collectés
+     * et dédoublonnés, puis résolus en parallèle borné auprès de RewardCentral, avant l'écriture
+     * des récompenses : le coût dépend du nombre de couples distincts, pas des boucles imbriquées.
      * @param users Liste des utilisateurs.
      */
     public void calculateRewardsForAllUsers(List<User> users) {
-        List<CompletableFuture<Void>> futures = users.stream()
-            .map(user -> CompletableFuture.runAsync(() -> calculateRewards(user), executor))
-            .collect(Collectors.toList());
+        for (int from = 0; from < users.size(); from += bulkBatchSize) {
+            calculateRewardsBatch(users.subList(from, Math.min(users.size(), from + bulkBatchSize)));
+        }
+    }
+
+    /** Traite un lot : proximité, résolution des couples distincts, puis écriture. */
+    private void calculateRewardsBatch(List<User> batch) {
+        List<RewardScan> scans = new ArrayList<>(batch.size());
+        for (User user : batch) {
+            scans.add(scanNewLocations(user));
+        }
+
+        Map<RewardPair, CompletableFuture<Integer>> points = new HashMap<>();
+        for (RewardScan scan : scans) {
+            for (PendingReward pending : scan.pending()) {
+                points.computeIfAbsent(pending.pair(), pair -> CompletableFuture.supplyAsync(
+                        () -> getRewardPoints(pair.attraction(), pair.user()), executor));
+            }
+        }
+        CompletableFuture.allOf(points.values().toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
+
+        for (RewardScan scan : scans) {
+            try {
+                writeRewards(scan, pending -> points.get(pending.pair()).join());
+            } catch (CompletionException e) {
+                // le watermark n'avance pas : l'utilisateur sera réévalué au prochain calcul
+                logger.warn("Reward points unavailable for user " + scan.user().getUserName(), e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Étape de proximité : évalue les positions non encore traitées d'un utilisateur et retient,
+     * une seule fois par attraction, celles qui ne sont pas déjà récompensées.
+     * Pour chaque lieu, l'index spatial présélectionne les attractions dont la boîte englobante
+     * recoupe le rayon de proximité ; chaque candidate est confirmée par le noyau de distance précalculé
+     * (approximation équirectangulaire, formule exacte seulement près du seuil).
+     * Aucun appel à RewardCentral n'est fait à cette étape.
+     */
+    RewardScan scanNewLocations(User user) {
+        long version = proximityVersion;
+        int buffer = proximityBuffer;
+        AttractionIndex index = getAttractionIndex();
+
+        LocationHistory history = user.getVisitedLocationHistory();
+        long from = user.getRewardWatermark(version);
+        if (from > history.nextSequence()) {
+            from = 0;
+        }
+
+        Set<String> rewarded = new HashSet<>();
+        user.getUserRewards().forEach(r -> rewarded.add(r.attraction.attractionName));
+        List<PendingReward> pending = new ArrayList<>();
+
+        // Lecture des coordonnées primitives : un VisitedLocation n'est créé que pour une récompense retenue.
+        long processed = history.scan(from, (sequence, latitude, longitude, timeMillis) -> {
+            for (Attraction attraction : index.withinRadius(GeoPoint.of(latitude, longitude), buffer)) {
+                if (rewarded.add(attraction.attractionName)) {
+                    VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(),
+                            new Location(latitude, longitude), new Date(timeMillis));
+                    pending.add(new PendingReward(user, visitedLocation, attraction));
+                }
+            }
+        });
+        return new RewardScan(user, version, processed, pending);
+    }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    /**
+     * Étape de résolution : obtient les points de chaque récompense retenue (cache ou RewardCentral),
+     * puis les écrit et avance le watermark de l'utilisateur.
+     */
+    void resolveRewards(RewardScan scan) {
+        writeRewards(scan, pending -> getRewardPoints(pending.attraction(), scan.user()));
+    }
+
+    /**
+     * Étape d'écriture : ajoute les récompenses résolues puis avance le watermark de l'utilisateur.
+     */
+    private void writeRewards(RewardScan scan, ToIntFunction<PendingReward> points) {
+        User user = scan.user();
+        for (PendingReward pending : scan.pending()) {
+            int rewardPoints = points.applyAsInt(pending);
+            synchronized (user.getUserRewards()) {
+                user.addUserReward(new UserReward(pending.visitedLocation(), pending.attraction(), rewardPoints));
+            }
+        }
+        user.advanceRewardWatermark(scan.version(), scan.processed());
     }
 
     /**
      * Récupère les points de récompense pour un utilisateur et une attraction.
-     * Résultat mis en cache pour éviter les appels redondants à RewardCentral.
+     * Résultat mis en cache pour éviter les appels redondants à RewardCentral ; les appels concurrents
+     * pour un même couple partagent un seul chargement.
      * @param attraction L'attraction visée.
      * @param user L'utilisateur.
      * @return Points de récompense attribués.
      */
     public int getRewardPoints(Attraction attraction, User user) {
-        String key = attraction.attractionId + "_" + user.getUserId();
-        return rewardCache.computeIfAbsent(key,
-            k -> rewardsCentral.getAttractionRewardPoints(attraction.attractionId, user.getUserId()));
+        long start = System.nanoTime();
+        // Le chargeur s'exécute dans le thread de l'appelant qui a manqué le cache
+        boolean[] loaded = new boolean[1];
+        int points = rewardCache.get(attraction.attractionId, user.getUserId(),
+            (attractionId, userId) -> {
+                loaded[0] = true;
+                return rewardCentralLimiter.call(() -> rewardsCentral.getAttractionRewardPoints(attractionId, userId));
+            });
+        (loaded[0] ? rewardPointsMissTimer : rewardPointsHitTimer)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return points;
+    }
+
+    /**
+     * Retourne le cache des points de récompense, pour la supervision.
+     * @return cache des points.
+     */
+    public RewardPointsCache getRewardPointsCache() {
+        return rewardCache;
     }
 
     /**
@@ -123,19 +327,46 @@ public class RewardsService {
      * @return distance entre les deux en miles.
      */
     public double getDistance(Location loc1, Location loc2) {
-        double lat1 = Math.toRadians(loc1.latitude), lon1 = Math.toRadians(loc1.longitude);
-        double lat2 = Math.toRadians(loc2.latitude), lon2 = Math.toRadians(loc2.longitude);
-        double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
-                + Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
-        double nauticalMiles = 60 * Math.toDegrees(angle);
-        return STATUTE_MILES_PER_NAUTICAL_MILE * nauticalMiles;
+        return getDistance(loc1.latitude, loc1.longitude, loc2.latitude, loc2.longitude);
+    }
+
+    /**
+     * Calcule la distance entre deux positions données par leurs coordonnées.
+     * @param latitude1 latitude de la première position, en degrés.
+     * @param longitude1 longitude de la première position, en degrés.
+     * @param latitude2 latitude de la deuxième position, en degrés.
+     * @param longitude2 longitude de la deuxième position, en degrés.
+     * @return distance entre les deux en miles.
+     */
+    public double getDistance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        return DistanceKernel.miles(latitude1, longitude1, latitude2, longitude2);
+    }
+
+    /** Attraction à récompenser pour un utilisateur, avec le lieu qui l'a déclenchée. */
+    record PendingReward(User user, VisitedLocation visitedLocation, Attraction attraction) {
+
+        RewardPair pair() {
+            return new RewardPair(attraction, user);
+        }
+    }
+
+    /** Couple (attraction, utilisateur) dont les points sont demandés à RewardCentral. */
+    private record RewardPair(Attraction attraction, User user) {
+    }
+
+    /** Résultat de l'étape de proximité pour un utilisateur. */
+    record RewardScan(User user, long version, long processed, List<PendingReward> pending) {
     }
 
     /**
-     * Arrête proprement le pool de threads utilisé pour le traitement parallèle.
+     * Arrête proprement le pool de threads utilisé pour le traitement parallèle,
+     * ainsi que le rafraîchissement du catalogue lorsqu'il appartient à ce service.
      */
     public void shutdown() {
         executor.shutdown();
+        if (ownsAttractionCatalog) {
+            attractionCatalogService.shutdown();
+        }
     }
 
     /**
@@ -147,4 +378,16 @@ public class RewardsService {
     public boolean isWithinAttractionProximity(Attraction attraction, Location location) {
         return getDistance(attraction, location) <= proximityBuffer;
     }
+
+    /**
+     * Enregistre les métriques du service : durées de calcul des récompenses, d'obtention des points
+     * (succès et échecs du cache) et des appels à RewardCentral, taille du cache et file du pool de calcul.
+     * @param registry registre Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters.add(registry);
+        CaffeineCacheMetrics.monitor(registry, rewardCache.asCache(), "rewardPoints");
+        new ExecutorServiceMetrics(executor, "rewards", Tags.empty()).bindTo(registry);
+    }
 }
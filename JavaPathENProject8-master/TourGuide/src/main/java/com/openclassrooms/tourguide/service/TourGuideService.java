@@ -5,62 +5,154 @@
  */
 package com.openclassrooms.tourguide.service;
 
+import com.openclassrooms.tourguide.cache.TripDealsCache;
+import com.openclassrooms.tourguide.concurrent.AsyncCalls;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.concurrent.InFlightCalls;
+import com.openclassrooms.tourguide.concurrent.VendorCallLimiter;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.dto.UserOverviewDTO;
+import com.openclassrooms.tourguide.geo.GeoPoint;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.InternalUserGenerator;
+import com.openclassrooms.tourguide.helper.InternalUserSnapshot;
+import com.openclassrooms.tourguide.store.SegmentStore;
 import com.openclassrooms.tourguide.tracker.Tracker;
+import com.openclassrooms.tourguide.user.ColumnarLocationStore;
+import com.openclassrooms.tourguide.user.LatestLocationVisitor;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserPreferences;
+import com.openclassrooms.tourguide.user.UserRegistry;
 import com.openclassrooms.tourguide.user.UserReward;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
 import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import tripPricer.Provider;
 import tripPricer.TripPricer;
 
+import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 @Service
-public class TourGuideService {
+public class TourGuideService implements MeterBinder {
 
     private final Logger logger = LoggerFactory.getLogger(TourGuideService.class);
     private final GpsUtil gpsUtil;
     private final RewardsService rewardsService;
     private final TripPricer tripPricer = new TripPricer();
     public final Tracker tracker;
-    private final Map<String, User> internalUserMap = new HashMap<>();
+    private final TrackingPipeline trackingPipeline;
+    private final ExecutorService gpsExecutor;
+    private final ExecutorService rewardsExecutor;
+    private final ExecutorService pricerExecutor;
+    private final Duration asyncTimeout;
+    private final int bulkParallelism;
+    private final InFlightCalls<UUID, VisitedLocation> locationFetches = new InFlightCalls<>();
+    private final VendorCallLimiter gpsLimiter;
+    private final VendorCallLimiter tripPricerLimiter;
+    private final TripDealsCache tripDealsCache;
+    private final CompositeMeterRegistry meters = new CompositeMeterRegistry();
+    private final Timer trackLocationTimer = Timer.builder("tourguide.track.location").register(meters);
+    private final Timer tripDealsTimer = Timer.builder("tourguide.trip.deals").register(meters);
+    private static final int NEARBY_ATTRACTIONS_COUNT = 5;
+    private final UserRegistry userRegistry = new UserRegistry();
+    private final TourGuideProperties.History historyRetention;
+    private final ColumnarLocationStore locationStore;
+    private final SegmentStore historyStore;
     private static final String tripPricerApiKey = "test-server-api-key";
     boolean testMode = true;
+    private final CompletableFuture<Void> internalUsersReady;
+
+    /**
+     * Constructeur du service TourGuide avec la configuration par défaut.
+     * @param gpsUtil service de géolocalisation
+     * @param rewardsService service de récompense
+     */
+    public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService) {
+        this(gpsUtil, rewardsService, new TourGuideProperties());
+    }
 
     /**
      * Constructeur du service TourGuide.
      * Initialise les utilisateurs internes si testMode est actif.
      * @param gpsUtil service de géolocalisation
      * @param rewardsService service de récompense
+     * @param properties configuration de l'application
      */
-    public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService) {
+    @Autowired
+    public TourGuideService(GpsUtil gpsUtil, RewardsService rewardsService, TourGuideProperties properties) {
         this.gpsUtil = gpsUtil;
         this.rewardsService = rewardsService;
 
+        TourGuideProperties.Execution execution = properties.getExecution();
+        this.gpsExecutor = execution.getMode().newBoundedExecutor("async-gps",
+                execution.getPlatformPoolSize(), execution.getAsyncQueueCapacity());
+        this.rewardsExecutor = execution.getMode().newBoundedExecutor("async-rewards",
+                execution.getPlatformPoolSize(), execution.getAsyncQueueCapacity());
+        this.pricerExecutor = execution.getMode().newBoundedExecutor("async-pricer",
+                execution.getPlatformPoolSize(), execution.getAsyncQueueCapacity());
+        this.asyncTimeout = execution.getAsyncTimeout();
+        this.bulkParallelism = Math.max(1, execution.getBulkParallelism());
+        this.gpsLimiter = new VendorCallLimiter("gpsUtil", execution.getMaxConcurrentGpsCalls(), meters);
+        this.tripPricerLimiter = new VendorCallLimiter("TripPricer", execution.getMaxConcurrentPricerCalls(), meters);
+        this.trackingPipeline = new TrackingPipeline(properties.getPipeline(), execution.getMode(),
+                this::fetchForPipeline, rewardsService);
+        TourGuideProperties.TripDeals tripDeals = properties.getTripDeals();
+        this.tripDealsCache = new TripDealsCache(tripDeals.getCacheMaximumSize(),
+                tripDeals.getCacheExpireAfterWrite(), tripDeals.getCacheRefreshAfterWrite(),
+                pricerExecutor, this::priceTrip);
+        this.historyRetention = properties.getHistory();
+        this.locationStore = historyRetention.isColumnar()
+                ? new ColumnarLocationStore(historyRetention.getMaxLocations(), historyRetention.getMaxAge())
+                : null;
+        TourGuideProperties.Store store = properties.getStore();
+        this.historyStore = store.isEnabled()
+                ? SegmentStore.open(store.getDirectory(), store.getSegmentSize().toBytes())
+                : null;
+
         Locale.setDefault(Locale.US);
 
         if (testMode) {
             logger.info("TestMode enabled");
             logger.debug("Initializing users");
-            initializeInternalUsers();
-            logger.debug("Finished initializing users");
+            this.internalUsersReady = initializeInternalUsers(properties.getInternalUsers(), execution.getMode());
+        } else {
+            this.internalUsersReady = CompletableFuture.completedFuture(null);
+        }
+
+        if (historyStore != null) {
+            historyStore.scheduleCompaction(store.getCompactionInterval(), historyRetention.getMaxLocations());
         }
 
-        tracker = new Tracker(this);
+        tracker = new Tracker(this, properties.getTracker(), execution.getMode());
         addShutDownHook();
     }
 
@@ -79,9 +171,18 @@ public class TourGuideService {
      * @return dernière position visitée
      */
     public VisitedLocation getUserLocation(User user) {
-        return user.getVisitedLocations().size() > 0
-                ? user.getLastVisitedLocation()
-                : trackUserLocation(user);
+        VisitedLocation lastLocation = user.getLastVisitedLocation();
+        return lastLocation != null ? lastLocation : trackUserLocation(user);
+    }
+
+    /**
+     * Retourne de manière asynchrone la dernière position connue, ou la suit si elle est vide.
+     * @param user utilisateur concerné
+     * @return futur de la dernière position visitée, déjà complété si elle est connue
+     */
+    public CompletableFuture<VisitedLocation> getUserLocationAsync(User user) {
+        VisitedLocation lastLocation = user.getLastVisitedLocation();
+        return lastLocation != null ? CompletableFuture.completedFuture(lastLocation) : trackUserLocationAsync(user);
     }
 
     /**
@@ -90,57 +191,261 @@ public class TourGuideService {
      * @return instance de User
      */
     public User getUser(String userName) {
-        return internalUserMap.get(userName);
+        return userRegistry.getByName(userName);
+    }
+
+    /**
+     * Récupère un utilisateur par son identifiant.
+     * @param userId identifiant de l'utilisateur
+     * @return instance de User, ou null si inconnu
+     */
+    public User getUser(UUID userId) {
+        return userRegistry.getById(userId);
     }
 
     /**
-     * Retourne tous les utilisateurs connus.
+     * Retourne une copie de tous les utilisateurs connus.
+     * Le tracker parcourt directement le registre, sans cette copie.
      * @return liste des utilisateurs
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(internalUserMap.values());
+        return userRegistry.snapshot();
+    }
+
+    /**
+     * Parcourt la dernière position connue de chaque utilisateur, directement dans le registre :
+     * ni copie de la liste des utilisateurs, ni {@link VisitedLocation} reconstruit, ni appel à gpsUtil.
+     * Les utilisateurs sans position sont ignorés ; ceux ajoutés pendant le parcours peuvent l'être aussi.
+     * @param visitor fonction appelée pour chaque utilisateur localisé
+     * @return nombre de positions transmises
+     */
+    public long forEachLatestLocation(LatestLocationVisitor visitor) {
+        long count = 0;
+        for (User user : userRegistry.users()) {
+            UUID userId = user.getUserId();
+            if (user.getVisitedLocationHistory().visitLast((sequence, latitude, longitude, timeMillis) ->
+                    visitor.visit(userId, latitude, longitude, timeMillis))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Retourne le registre concurrent des utilisateurs.
+     * @return registre des utilisateurs
+     */
+    public UserRegistry getUserRegistry() {
+        return userRegistry;
     }
 
     /**
-     * Ajoute un nouvel utilisateur si non existant.
+     * Ajoute un nouvel utilisateur si non existant, en appliquant la rétention configurée à son historique.
+     * Si le stockage en colonnes est actif, l'historique de l'utilisateur est déplacé dans un slot.
+     * Si le stockage persistant est actif, ses positions et récompenses y sont écrites, ainsi que les suivantes.
      * @param user utilisateur à ajouter
      */
     public void addUser(User user) {
-        internalUserMap.putIfAbsent(user.getUserName(), user);
+        addUser(user, true);
+    }
+
+    /**
+     * Ajoute un utilisateur ; les données rechargées depuis le stockage persistant n'y sont pas réécrites.
+     * Le nom est réservé dans le registre avant toute allocation ou écriture, faites par le seul appel gagnant.
+     * @param user utilisateur à ajouter
+     * @param persistExisting true pour écrire les positions et récompenses déjà connues de l'utilisateur
+     */
+    private void addUser(User user, boolean persistExisting) {
+        if (!userRegistry.add(user)) {
+            return;
+        }
+        if (locationStore != null) {
+            user.setVisitedLocationHistory(locationStore.allocate(user.getUserId()));
+        } else {
+            user.getVisitedLocationHistory().retain(historyRetention.getMaxLocations(), historyRetention.getMaxAge());
+        }
+        if (historyStore != null) {
+            if (persistExisting) {
+                user.getVisitedLocations().forEach(historyStore::appendLocation);
+                user.getUserRewards().forEach(this::persistReward);
+            }
+            user.journalVisitedLocations(historyStore::appendLocation);
+            user.setRewardJournal(this::persistReward);
+        }
+    }
+
+    /**
+     * Retourne l'avancement de la création des utilisateurs internes.
+     * @return futur complété une fois tous les utilisateurs créés, en erreur si la création a échoué
+     */
+    public CompletableFuture<Void> getInternalUsersReady() {
+        return internalUsersReady;
+    }
+
+    /**
+     * Retourne le stockage persistant des positions et récompenses, pour l'instrumentation et les tests.
+     * @return stockage, ou null s'il n'est pas actif
+     */
+    public SegmentStore getHistoryStore() {
+        return historyStore;
+    }
+
+    /**
+     * Écrit une récompense dans le stockage persistant. L'attraction y est désignée par son nom, ses identifiants
+     * changeant à chaque chargement et sa position dépendant de l'ordre du catalogue.
+     */
+    private void persistReward(UserReward reward) {
+        historyStore.appendReward(reward.visitedLocation, reward.attraction.attractionName, reward.getRewardPoints());
     }
 
     /**
      * Récupère les offres de voyage personnalisées d'un utilisateur.
+     * Les offres déjà calculées pour les mêmes préférences et le même total de points sont servies
+     * depuis le cache, et recalculées en arrière-plan lorsqu'elles ont vieilli.
      * @param user utilisateur concerné
      * @return liste de fournisseurs avec prix
      */
     public List<Provider> getTripDeals(User user) {
+        List<Provider> providers = tripDealsTimer.record(() -> tripDealsCache.get(tripDealsKey(user)));
+        user.setTripDeals(providers);
+        return providers;
+    }
+
+    /**
+     * Récupère de manière asynchrone les offres de voyage d'un utilisateur.
+     * Les offres en cache sont retournées immédiatement ; sinon TripPricer est appelé sur l'executor dédié.
+     * Chaque demande compte une seule lecture du cache et une seule mesure, jusqu'à la fin de l'appel.
+     * @param user utilisateur concerné
+     * @return futur des fournisseurs, en erreur à expiration du délai configuré
+     */
+    public CompletableFuture<List<Provider>> getTripDealsAsync(User user) {
+        Timer.Sample sample = Timer.start(meters);
+        TripDealsCache.Key key = tripDealsKey(user);
+        List<Provider> cached = tripDealsCache.getIfPresent(key);
+        if (cached != null) {
+            user.setTripDeals(cached);
+            sample.stop(tripDealsTimer);
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<List<Provider>> deals = AsyncCalls.supply(() -> {
+            List<Provider> providers = tripDealsCache.load(key);
+            user.setTripDeals(providers);
+            return providers;
+        }, pricerExecutor);
+        return AsyncCalls.withTimeout(deals, asyncTimeout).whenComplete((providers, e) -> sample.stop(tripDealsTimer));
+    }
+
+    /**
+     * Retourne le cache des offres de voyage, pour l'instrumentation et les tests.
+     * @return cache des offres
+     */
+    public TripDealsCache getTripDealsCache() {
+        return tripDealsCache;
+    }
+
+    /** Construit la clé du cache à partir des préférences courantes et du total des points de l'utilisateur. */
+    private TripDealsCache.Key tripDealsKey(User user) {
         int cumulatedRewardPoints = user.getUserRewards().stream()
                 .mapToInt(UserReward::getRewardPoints)
                 .sum();
+        UserPreferences preferences = user.getUserPreferences();
+        return new TripDealsCache.Key(user.getUserId(), preferences.getNumberOfAdults(),
+                preferences.getNumberOfChildren(), preferences.getTripDuration(), cumulatedRewardPoints);
+    }
 
-        List<Provider> providers = tripPricer.getPrice(
+    /** Appelle TripPricer pour une clé du cache. */
+    private List<Provider> priceTrip(TripDealsCache.Key key) {
+        return tripPricerLimiter.call(() -> tripPricer.getPrice(
                 tripPricerApiKey,
-                user.getUserId(),
-                user.getUserPreferences().getNumberOfAdults(),
-                user.getUserPreferences().getNumberOfChildren(),
-                user.getUserPreferences().getTripDuration(),
-                cumulatedRewardPoints
-        );
-        user.setTripDeals(providers);
-        return providers;
+                key.userId(),
+                key.adults(),
+                key.children(),
+                key.tripDuration(),
+                key.rewardPoints()
+        ));
     }
 
     /**
      * Suit la position d'un utilisateur et déclenche le calcul des récompenses.
+     * Si un suivi du même utilisateur est déjà en cours (requête concurrente ou tracker),
+     * son résultat est partagé : gpsUtil et le calcul des récompenses ne sont appelés qu'une fois.
      * @param user utilisateur suivi
      * @return nouvelle position visitée
      */
     public VisitedLocation trackUserLocation(User user) {
-        VisitedLocation visitedLocation = gpsUtil.getUserLocation(user.getUserId());
-        user.addToVisitedLocations(visitedLocation);
-        rewardsService.calculateRewards(user);
-        return visitedLocation;
+        return locationFetches.call(user.getUserId(), () -> trackLocationTimer.record(() -> {
+            VisitedLocation visitedLocation = gpsLimiter.call(() -> gpsUtil.getUserLocation(user.getUserId()));
+            user.addToVisitedLocations(visitedLocation);
+            rewardsService.calculateRewards(user);
+            return visitedLocation;
+        }));
+    }
+
+    /**
+     * Suit de manière asynchrone la position d'un utilisateur : l'appel à gpsUtil puis le calcul des récompenses
+     * s'exécutent chacun sur leur executor dédié, sans bloquer l'appelant.
+     * Comme {@link #trackUserLocation}, un suivi déjà en cours pour cet utilisateur est partagé.
+     * Annuler le futur, ou le laisser expirer, ne concerne que cet appelant ; l'étape en cours n'est interrompue
+     * que lorsque tous les appelants du suivi partagé y ont renoncé.
+     * @param user utilisateur suivi
+     * @return futur de la nouvelle position, complété une fois les récompenses calculées
+     */
+    public CompletableFuture<VisitedLocation> trackUserLocationAsync(User user) {
+        return AsyncCalls.withTimeout(trackUserLocationShared(user), asyncTimeout);
+    }
+
+    /**
+     * Retourne le nombre de suivis de position évités parce qu'un suivi du même utilisateur était en cours.
+     * @return nombre d'appels partagés
+     */
+    public long getCoalescedLocationFetches() {
+        return locationFetches.coalescedCount();
+    }
+
+    private CompletableFuture<VisitedLocation> trackUserLocationShared(User user) {
+        return locationFetches.join(user.getUserId(),
+                () -> AsyncCalls.withTimeout(trackUserLocationStages(user), asyncTimeout));
+    }
+
+    /**
+     * Étape de localisation du pipeline : le suivi de l'utilisateur est déclaré comme appel en cours,
+     * jusqu'à sa sortie du pipeline, pour être partagé avec les suivis concurrents et mesuré par le même timer.
+     * Si un suivi de cet utilisateur est déjà en cours, il est attendu et le pipeline ne le refait pas.
+     */
+    private VisitedLocation fetchForPipeline(User user, CompletableFuture<VisitedLocation> tracked) {
+        boolean[] owner = new boolean[1];
+        CompletableFuture<VisitedLocation> shared = locationFetches.join(user.getUserId(), () -> {
+            owner[0] = true;
+            return tracked;
+        });
+        if (!owner[0]) {
+            shared.join();
+            return null;
+        }
+        Timer.Sample sample = Timer.start(meters);
+        tracked.whenComplete((visitedLocation, e) -> sample.stop(trackLocationTimer));
+        return gpsLimiter.call(() -> gpsUtil.getUserLocation(user.getUserId()));
+    }
+
+    private CompletableFuture<VisitedLocation> trackUserLocationStages(User user) {
+        Timer.Sample sample = Timer.start(meters);
+        CompletableFuture<VisitedLocation> stages = AsyncCalls.compose(
+                AsyncCalls.supply(() -> gpsLimiter.call(() -> gpsUtil.getUserLocation(user.getUserId())), gpsExecutor),
+                visitedLocation -> AsyncCalls.supply(() -> {
+                    user.addToVisitedLocations(visitedLocation);
+                    rewardsService.calculateRewards(user);
+                    return visitedLocation;
+                }, rewardsExecutor));
+        stages.whenComplete((visitedLocation, e) -> sample.stop(trackLocationTimer));
+        return stages;
+    }
+
+    /**
+     * Recharge le catalogue d'attractions partagé avec le service de récompenses, ainsi que son index spatial.
+     * À appeler lorsque le catalogue d'attractions change sans attendre le rafraîchissement planifié.
+     */
+    public void refreshAttractionIndex() {
+        rewardsService.refreshAttractionIndex();
     }
 
     /**
@@ -149,11 +454,17 @@ public class TourGuideService {
      * @return liste des attractions les plus proches
      */
     public List<Attraction> getNearByAttractions(VisitedLocation visitedLocation) {
-        return gpsUtil.getAttractions().stream()
-                .sorted(Comparator.comparingDouble(a ->
-                        rewardsService.getDistance(visitedLocation.location, a)))
-                .limit(5)
-                .collect(Collectors.toList());
+        return rewardsService.getAttractionIndex().nearest(visitedLocation.location, NEARBY_ATTRACTIONS_COUNT);
+    }
+
+    /**
+     * Retourne les attractions situées dans un rayon autour d'une position.
+     * @param location position de référence
+     * @param miles rayon en miles
+     * @return attractions triées par distance croissante
+     */
+    public List<Attraction> getAttractionsWithin(Location location, double miles) {
+        return rewardsService.getAttractionIndex().withinRadius(location, miles);
     }
 
     /**
@@ -162,22 +473,46 @@ public class TourGuideService {
      * @return liste des NearbyAttractionDTO
      */
     public List<NearbyAttractionDTO> getNearbyAttractionsDetailed(User user) {
-        VisitedLocation visitedLocation = getUserLocation(user);
-
-        return gpsUtil.getAttractions().stream()
-                .sorted(Comparator.comparingDouble(a ->
-                        rewardsService.getDistance(visitedLocation.location, a)))
-                .limit(5)
-                .map(attraction -> {
-                    double distance = rewardsService.getDistance(visitedLocation.location, attraction);
+        // Coordonnées seules : aucun VisitedLocation n'est reconstruit depuis l'historique
+        Location location = user.getVisitedLocationHistory().lastLocation();
+        if (location == null) {
+            location = trackUserLocation(user).location;
+        }
+        return nearbyAttractions(user, location);
+    }
+
+    /**
+     * Retourne de manière asynchrone les 5 attractions les plus proches enrichies.
+     * Si l'utilisateur n'a pas de position, elle est d'abord suivie de manière asynchrone ;
+     * les points de récompense sont résolus sur l'executor dédié aux récompenses.
+     * @param user utilisateur concerné
+     * @return futur des NearbyAttractionDTO, en erreur à expiration du délai configuré
+     */
+    public CompletableFuture<List<NearbyAttractionDTO>> getNearbyAttractionsDetailedAsync(User user) {
+        Location location = user.getVisitedLocationHistory().lastLocation();
+        CompletableFuture<List<NearbyAttractionDTO>> nearby = location != null
+                ? AsyncCalls.supply(() -> nearbyAttractions(user, location), rewardsExecutor)
+                : AsyncCalls.compose(trackUserLocationShared(user), visitedLocation -> AsyncCalls.supply(
+                        () -> nearbyAttractions(user, visitedLocation.location), rewardsExecutor));
+        return AsyncCalls.withTimeout(nearby, asyncTimeout);
+    }
+
+    private List<NearbyAttractionDTO> nearbyAttractions(User user, Location location) {
+        double latitude = location.latitude;
+        double longitude = location.longitude;
+
+        return rewardsService.getAttractionIndex()
+                .nearestWithDistances(GeoPoint.of(latitude, longitude), NEARBY_ATTRACTIONS_COUNT).stream()
+                .map(nearby -> {
+                    Attraction attraction = nearby.attraction();
                     int points = rewardsService.getRewardPoints(attraction, user);
                     return new NearbyAttractionDTO(
                             attraction.attractionName,
                             attraction.latitude,
                             attraction.longitude,
-                            visitedLocation.location.latitude,
-                            visitedLocation.location.longitude,
-                            distance,
+                            latitude,
+                            longitude,
+                            nearby.miles(),
                             points
                     );
                 })
@@ -185,73 +520,246 @@ public class TourGuideService {
     }
 
     /**
-     * Suit tous les utilisateurs de manière asynchrone.
+     * Retourne de manière asynchrone la position, les récompenses et les attractions proches d'un utilisateur.
+     * Le futur ne se termine jamais en erreur : un échec produit un résultat partiel décrivant l'erreur.
+     * @param userName nom de l'utilisateur
+     * @return futur de la synthèse de l'utilisateur
+     */
+    public CompletableFuture<UserOverviewDTO> getUserOverview(String userName) {
+        User user = getUser(userName);
+        if (user == null) {
+            return CompletableFuture.completedFuture(new UserOverviewDTO(userName, null, null, null, "Unknown user"));
+        }
+        return AsyncCalls.compose(getUserLocationAsync(user), location -> getNearbyAttractionsDetailedAsync(user)
+                        .thenApply(nearby -> new UserOverviewDTO(userName, location, getUserRewards(user), nearby, null)))
+                .exceptionally(e -> new UserOverviewDTO(userName, user.getLastVisitedLocation(), getUserRewards(user),
+                        null, describe(e)));
+    }
+
+    /**
+     * Calcule la synthèse de plusieurs utilisateurs, au plus {@code tourguide.execution.bulk-parallelism} à la fois,
+     * et transmet chaque résultat dès qu'il est disponible, dans l'ordre de complétion.
+     * Aucun thread n'attend : chaque voie démarre l'utilisateur suivant à la complétion du précédent.
+     * @param userNames noms des utilisateurs
+     * @param sink consommateur des résultats, appelé depuis plusieurs threads
+     * @return futur complété lorsque tous les résultats ont été transmis, en erreur si le consommateur a échoué
+     */
+    public CompletableFuture<Void> getUserOverviews(List<String> userNames, Consumer<UserOverviewDTO> sink) {
+        AtomicInteger next = new AtomicInteger();
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        CompletableFuture<?>[] lanes = new CompletableFuture[Math.min(bulkParallelism, userNames.size())];
+        for (int i = 0; i < lanes.length; i++) {
+            CompletableFuture<Void> lane = new CompletableFuture<>();
+            runOverviewLane(userNames, next, sink, lane, failed);
+            lanes[i] = lane;
+        }
+        CompletableFuture<Void> done = CompletableFuture.allOf(lanes);
+        return CompletableFuture.anyOf(done, failed).thenApply(v -> null);
+    }
+
+    /** Traite les utilisateurs suivants d'une voie, sans récursion lorsque les résultats sont immédiats. */
+    private void runOverviewLane(List<String> userNames, AtomicInteger next, Consumer<UserOverviewDTO> sink,
+                                 CompletableFuture<Void> lane, CompletableFuture<Void> failed) {
+        try {
+            int index;
+            while (!failed.isDone() && (index = next.getAndIncrement()) < userNames.size()) {
+                CompletableFuture<UserOverviewDTO> overview = getUserOverview(userNames.get(index));
+                if (!overview.isDone()) {
+                    overview.whenComplete((result, error) -> {
+                        try {
+                            sink.accept(result);
+                        } catch (RuntimeException e) {
+                            failed.completeExceptionally(e);
+                            lane.complete(null);
+                            return;
+                        }
+                        runOverviewLane(userNames, next, sink, lane, failed);
+                    });
+                    return;
+                }
+                sink.accept(overview.join());
+            }
+        } catch (RuntimeException e) {
+            failed.completeExceptionally(e);
+        }
+        lane.complete(null);
+    }
+
+    /** Décrit l'erreur d'un appel asynchrone pour un résultat partiel. */
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException) {
+            return "Upstream service timed out";
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return "Too many pending requests";
+        }
+        return cause.getClass().getSimpleName() + (cause.getMessage() != null ? ": " + cause.getMessage() : "");
+    }
+
+    /**
+     * Suit tous les utilisateurs à travers le pipeline de suivi : localisation, historique, proximité puis points,
+     * chaque étape avec ses propres workers. Les files entre étapes sont bornées : si RewardCentral ralentit,
+     * les étapes amont et la soumission ralentissent aussi, sans accumuler de tâches en mémoire.
      * @param users liste des utilisateurs
      */
     public void trackAllUsersAsync(List<User> users) {
-        List<CompletableFuture<Void>> futures = users.stream()
-                .map(user -> CompletableFuture.runAsync(() -> trackUserLocation(user)))
-                .collect(Collectors.toList());
+        trackingPipeline.trackAll(users);
+    }
 
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    /**
+     * Suit les utilisateurs à travers le pipeline de suivi, dans l'ordre donné et dans la limite d'une échéance ;
+     * utilisé par les cycles du tracker.
+     * @param users utilisateurs à suivre
+     * @param deadline échéance (System.nanoTime) au-delà de laquelle un utilisateur n'est plus localisé
+     * @param late destinataire des utilisateurs non suivis avant l'échéance
+     * @return nombre d'utilisateurs suivis
+     */
+    public int trackUsersBefore(Iterable<User> users, long deadline, Consumer<User> late) {
+        return trackingPipeline.trackBefore(users, deadline, late);
+    }
+
+    /**
+     * Enregistre les métriques du service : durées du suivi de position, des offres de voyage et des appels
+     * à gpsUtil et TripPricer, suivis partagés, nombre d'utilisateurs, file des executors, taille du cache
+     * des offres, ainsi que les métriques du pipeline de suivi, du tracker et du stockage persistant.
+     * @param registry registre Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters.add(registry);
+        FunctionCounter.builder("tourguide.track.location.coalesced", locationFetches, InFlightCalls::coalescedCount)
+                .register(registry);
+        Gauge.builder("tourguide.users", userRegistry, UserRegistry::size).register(registry);
+        CaffeineCacheMetrics.monitor(registry, tripDealsCache.asCache(), "tripDeals");
+        new ExecutorServiceMetrics(gpsExecutor, "async-gps", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(rewardsExecutor, "async-rewards", Tags.empty()).bindTo(registry);
+        new ExecutorServiceMetrics(pricerExecutor, "async-pricer", Tags.empty()).bindTo(registry);
+        trackingPipeline.bindTo(registry);
+        tracker.bindTo(registry);
+        if (historyStore != null) {
+            historyStore.bindTo(registry);
+        }
     }
 
     /** Ajoute un hook pour arrêter le tracker proprement à l'arrêt de l'application. */
     private void addShutDownHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> tracker.stopTracking()));
-    }
-
-    /** Initialise des utilisateurs internes pour les tests. */
-    private void initializeInternalUsers() {
-        IntStream.range(0, InternalTestHelper.getInternalUserNumber()).forEach(i -> {
-            String userName = "internalUser" + i;
-            User user = new User(
-                    UUID.randomUUID(),
-                    userName,
-                    "000",
-                    userName + "@tourGuide.com"
-            );
-            generateUserLocationHistory(user);
-            internalUserMap.put(userName, user);
-        });
-        logger.debug("Created {} internal test users.", InternalTestHelper.getInternalUserNumber());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            tracker.stopTracking();
+            trackingPipeline.shutdown();
+            gpsExecutor.shutdownNow();
+            rewardsExecutor.shutdownNow();
+            pricerExecutor.shutdownNow();
+            if (historyStore != null) {
+                historyStore.close();
+            }
+        }));
     }
 
-    /** Génére l'historique de localisation d'un utilisateur. */
-    private void generateUserLocationHistory(User user) {
-        IntStream.range(0, 3).forEach(i -> {
-            user.addToVisitedLocations(new VisitedLocation(
-                    user.getUserId(),
-                    new Location(generateRandomLatitude(), generateRandomLongitude()),
-                    getRandomTime()
-            ));
-        });
+    /**
+     * Lance la création des utilisateurs internes, dans le constructeur ou, en mode asynchrone,
+     * sur un thread dédié : le service et les endpoints sont alors disponibles pendant la création.
+     * @param config graine, instantané et mode de création
+     * @param executionMode mode d'exécution du thread de création
+     * @return futur complété une fois tous les utilisateurs créés
+     */
+    private CompletableFuture<Void> initializeInternalUsers(TourGuideProperties.InternalUsers config,
+                                                            ExecutionMode executionMode) {
+        if (!config.isAsync()) {
+            populateInternalUsers(config);
+            logger.debug("Finished initializing users");
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        executionMode.newThreadFactory("internal-users").newThread(() -> {
+            try {
+                populateInternalUsers(config);
+                logger.debug("Finished initializing users");
+                ready.complete(null);
+            } catch (RuntimeException e) {
+                logger.error("Internal users initialization failed", e);
+                ready.completeExceptionally(e);
+            }
+        }).start();
+        return ready;
     }
 
     /**
-     * Génère une longitude aléatoire entre -180 et +180 degrés.
-     * @return valeur de longitude aléatoire.
+     * Crée les utilisateurs internes pour les tests, à partir de l'instantané configuré s'il existe,
+     * sinon par génération parallèle reproductible (écrite ensuite dans l'instantané).
+     * Si le stockage persistant est actif, un utilisateur déjà connu reprend sa dernière position
+     * et ses récompenses au lieu de son historique généré ; la graine doit donc rester la même.
+     * @param config graine, instantané et mode de création
      */
-    private double generateRandomLongitude() {
-        return -180 + new Random().nextDouble() * 360;
+    private void populateInternalUsers(TourGuideProperties.InternalUsers config) {
+        int count = InternalTestHelper.getInternalUserNumber();
+        StopWatch stopWatch = StopWatch.createStarted();
+        User[] users = loadInternalUserSnapshot(config.getSnapshot(), count);
+        boolean fromSnapshot = users != null;
+        if (!fromSnapshot) {
+            users = new InternalUserGenerator(config.getSeed()).generate(count);
+            if (config.getSnapshot() != null) {
+                InternalUserSnapshot.write(config.getSnapshot(), users);
+            }
+        }
+
+        Map<UUID, VisitedLocation> latestLocations = historyStore != null
+                ? historyStore.loadLatestLocations()
+                : Map.of();
+        Map<UUID, List<UserReward>> storedRewards = historyStore != null ? loadStoredRewards() : Map.of();
+        Arrays.stream(users).parallel().forEach(user -> {
+            VisitedLocation latestLocation = latestLocations.get(user.getUserId());
+            if (latestLocation != null) {
+                user.clearVisitedLocations();
+                user.addToVisitedLocations(latestLocation);
+                storedRewards.getOrDefault(user.getUserId(), List.of()).forEach(user::addUserReward);
+                addUser(user, false);
+            } else {
+                addUser(user);
+            }
+        });
+        logger.debug("Created {} internal test users in {} ms ({}), {} restored from the store.", count,
+                stopWatch.getTime(), fromSnapshot ? "snapshot" : "generated", latestLocations.size());
     }
 
     /**
-     * Génère une latitude aléatoire entre -85.05112878 et +85.05112878 degrés.
-     * Cette plage respecte la limite d'affichage des cartes (Web Mercator).
-     * @return valeur de latitude aléatoire.
+     * Lit l'instantané des utilisateurs internes s'il existe et correspond au nombre attendu.
+     * @return utilisateurs, ou null s'ils doivent être générés
      */
-    private double generateRandomLatitude() {
-        return -85.05112878 + new Random().nextDouble() * 170.10225756;
+    private User[] loadInternalUserSnapshot(Path snapshot, int count) {
+        if (snapshot == null || !Files.exists(snapshot)) {
+            return null;
+        }
+        try {
+            User[] users = InternalUserSnapshot.read(snapshot);
+            if (users.length == count) {
+                return users;
+            }
+            logger.info("User snapshot {} holds {} users instead of {}, regenerating.", snapshot, users.length, count);
+        } catch (RuntimeException e) {
+            logger.warn("Unreadable user snapshot " + snapshot + ", regenerating.", e);
+        }
+        return null;
     }
 
     /**
-     * Génère une date aléatoire dans les 30 derniers jours.
-     * @return date aléatoire au format java.util.Date.
+     * Relit les récompenses du stockage persistant, par utilisateur, avec les attractions du catalogue courant
+     * retrouvées par leur nom ; celles d'une attraction retirée du catalogue sont ignorées.
      */
-    private Date getRandomTime() {
-        LocalDateTime localDateTime = LocalDateTime.now().minusDays(new Random().nextInt(30));
-        return Date.from(localDateTime.toInstant(ZoneOffset.UTC));
+    private Map<UUID, List<UserReward>> loadStoredRewards() {
+        Map<Long, Attraction> attractions = new HashMap<>();
+        for (Attraction attraction : rewardsService.getAttractionCatalog().attractions()) {
+            attractions.put(SegmentStore.attractionKey(attraction.attractionName), attraction);
+        }
+        Map<UUID, List<UserReward>> rewards = new HashMap<>();
+        historyStore.forEachReward((userId, visitedLocation, attractionKey, rewardPoints) -> {
+            Attraction attraction = attractions.get(attractionKey);
+            if (attraction != null) {
+                rewards.computeIfAbsent(userId, id -> new ArrayList<>())
+                        .add(new UserReward(visitedLocation, attraction, rewardPoints));
+            }
+        });
+        return rewards;
     }
 
 }
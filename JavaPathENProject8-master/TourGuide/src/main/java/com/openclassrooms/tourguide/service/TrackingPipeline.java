@@ -0,0 +1,385 @@
+/**
+ * Pipeline de suivi groupé des utilisateurs, en quatre étapes : localisation (gpsUtil), ajout à l'historique,
+ * proximité des attractions (index spatial) et résolution des points (cache ou RewardCentral).
+ * Chaque étape a ses propres workers et lit une file bornée : lorsqu'une étape ralentit, sa file se remplit,
+ * les workers de l'étape précédente se bloquent en y déposant, et la soumission finit par se bloquer à son tour.
+ * Le nombre d'utilisateurs en cours de traitement est ainsi borné, quelle que soit la taille du lot.
+ * Les workers sont démarrés au premier lot. À l'arrêt, les utilisateurs encore en cours font échouer leur lot
+ * au lieu de le laisser attendre indéfiniment.
+ */
+package com.openclassrooms.tourguide.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.user.User;
+
+public class TrackingPipeline implements MeterBinder {
+
+    private final Logger logger = LoggerFactory.getLogger(TrackingPipeline.class);
+
+    private final Stage fetch;
+
+    private final Stage append;
+
+    private final Stage proximity;
+
+    private final Stage rewards;
+
+    private final List<Stage> stages;
+
+    private final ExecutionMode executionMode;
+
+    /** Threads des workers, créés au premier lot. */
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean started;
+
+    private volatile boolean shutdown;
+
+    /**
+     * Localisation d'un utilisateur, première étape du pipeline.
+     */
+    @FunctionalInterface
+    public interface LocationFetch {
+
+        /**
+         * Localise un utilisateur.
+         * @param user utilisateur à suivre.
+         * @param tracked futur complété par le pipeline avec la position une fois l'utilisateur sorti
+         *                de la dernière étape, ou avec son échec.
+         * @return position, ou null si l'utilisateur vient d'être suivi par un autre appel :
+         *         il quitte alors le pipeline sans passer par les étapes suivantes.
+         */
+        VisitedLocation fetch(User user, CompletableFuture<VisitedLocation> tracked);
+    }
+
+    /**
+     * Constructeur du pipeline.
+     * @param config capacité des files et concurrence de chaque étape.
+     * @param executionMode threads plateforme ou virtuels pour les workers.
+     * @param fetchLocation appel à gpsUtil pour un utilisateur.
+     * @param rewardsService service de récompenses, pour les étapes de proximité et de résolution.
+     */
+    public TrackingPipeline(TourGuideProperties.Pipeline config, ExecutionMode executionMode,
+                            LocationFetch fetchLocation, RewardsService rewardsService) {
+        this.executionMode = executionMode;
+        int capacity = Math.max(1, config.getQueueCapacity());
+        this.rewards = new Stage("rewards", capacity, config.getRewardsConcurrency(), null,
+                job -> rewardsService.resolveRewards(job.scan));
+        this.proximity = new Stage("proximity", capacity, config.getProximityConcurrency(), rewards,
+                job -> job.scan = rewardsService.scanNewLocations(job.user));
+        this.append = new Stage("append", capacity, config.getAppendConcurrency(), proximity,
+                job -> job.user.addToVisitedLocations(job.visitedLocation));
+        this.fetch = new Stage("fetch", capacity, config.getFetchConcurrency(), append,
+                job -> {
+                    if (job.batch.expired()) {
+                        if (job.batch.late != null) {
+                            job.batch.late.accept(job.user);
+                        }
+                        job.finished = true;
+                        return;
+                    }
+                    job.visitedLocation = fetchLocation.fetch(job.user, job.tracked);
+                    job.finished = job.visitedLocation == null;
+                });
+        this.stages = List.of(fetch, append, proximity, rewards);
+    }
+
+    /**
+     * Fait traverser le pipeline à tous les utilisateurs et attend la fin du lot.
+     * La soumission se bloque tant que la première étape est pleine.
+     * @param users utilisateurs à suivre.
+     * @throws CompletionException si le suivi d'au moins un utilisateur a échoué, après traitement de tout le lot.
+     * @throws CancellationException si le thread est interrompu pendant la soumission ou l'attente.
+     * @throws RejectedExecutionException si le pipeline est arrêté.
+     */
+    public void trackAll(Collection<User> users) {
+        Batch batch = new Batch(0, null);
+        run(users, batch);
+        Throwable failure = batch.failure.get();
+        if (failure != null) {
+            throw new CompletionException(failure);
+        }
+    }
+
+    /**
+     * Fait traverser le pipeline aux utilisateurs dans l'ordre donné, dans la limite d'une échéance :
+     * un utilisateur qui atteint l'étape de localisation après l'échéance n'est pas suivi et est remis
+     * à {@code late}. Les échecs sont journalisés sans interrompre le lot. Les utilisateurs sont lus au fil
+     * de la soumission : un itérable faiblement cohérent peut être passé sans copie.
+     * @param users utilisateurs à suivre.
+     * @param deadline échéance (System.nanoTime).
+     * @param late destinataire des utilisateurs non suivis faute de temps.
+     * @return nombre d'utilisateurs suivis.
+     * @throws CancellationException si le thread est interrompu pendant la soumission ou l'attente.
+     * @throws RejectedExecutionException si le pipeline est arrêté.
+     */
+    public int trackBefore(Iterable<User> users, long deadline, Consumer<User> late) {
+        Batch batch = new Batch(deadline, late);
+        run(users, batch);
+        return batch.tracked.get();
+    }
+
+    /**
+     * Retourne le nombre d'utilisateurs en attente à l'entrée d'une étape.
+     * @param stage nom de l'étape : fetch, append, proximity ou rewards.
+     * @return taille de la file.
+     */
+    public int queueSize(String stage) {
+        return stages.stream().filter(s -> s.name.equals(stage)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown stage: " + stage))
+                .queue.size();
+    }
+
+    /**
+     * Arrête les workers. Les utilisateurs encore en file ou en cours ne sont pas traités :
+     * leur lot échoue, et les lots suivants sont refusés.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        workers.forEach(Thread::interrupt);
+        failPending();
+    }
+
+    /**
+     * Enregistre les métriques de chaque étape : taille de la file, utilisateurs traités et échecs.
+     * @param registry registre Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Stage stage : stages) {
+            Gauge.builder("tourguide.pipeline.queue.size", stage.queue, BlockingQueue::size)
+                    .tag("stage", stage.name).register(registry);
+            FunctionCounter.builder("tourguide.pipeline.processed", stage.processed, LongAdder::sum)
+                    .tag("stage", stage.name).register(registry);
+            FunctionCounter.builder("tourguide.pipeline.failures", stage.failures, LongAdder::sum)
+                    .tag("stage", stage.name).register(registry);
+        }
+    }
+
+    private void run(Iterable<User> users, Batch batch) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Tracking pipeline is shut down");
+        }
+        start();
+        try {
+            for (User user : users) {
+                batch.pending.incrementAndGet();
+                try {
+                    fetch.queue.put(new Job(user, batch));
+                } catch (InterruptedException e) {
+                    batch.finish();
+                    throw e;
+                }
+                // Un arrêt concurrent a pu vider les files avant ce dépôt
+                if (shutdown) {
+                    failPending();
+                }
+            }
+            batch.finish();
+            batch.done.await();
+        } catch (InterruptedException e) {
+            // Les utilisateurs du lot encore en file ne seront pas localisés
+            batch.cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while tracking users");
+        }
+    }
+
+    /** Fait échouer les utilisateurs encore en file, pour que leur lot se termine. */
+    private void failPending() {
+        CancellationException cancelled = new CancellationException("Tracking pipeline was shut down");
+        for (Stage stage : stages) {
+            Job job;
+            while ((job = stage.queue.poll()) != null) {
+                job.fail(cancelled);
+            }
+        }
+    }
+
+    private void start() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (!started) {
+                for (Stage stage : stages) {
+                    ThreadFactory factory = executionMode.newThreadFactory("pipeline-" + stage.name);
+                    for (int i = 0; i < stage.concurrency; i++) {
+                        Thread worker = factory.newThread(stage::work);
+                        workers.add(worker);
+                        worker.start();
+                    }
+                }
+                started = true;
+            }
+        }
+    }
+
+    /** Étape du pipeline : file bornée en entrée, workers, et étape suivante. */
+    private final class Stage {
+
+        private final String name;
+
+        private final BlockingQueue<Job> queue;
+
+        private final int concurrency;
+
+        /** Étape suivante, null pour la dernière. */
+        private final Stage next;
+
+        private final Consumer<Job> action;
+
+        private final LongAdder processed = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private Stage(String name, int capacity, int concurrency, Stage next, Consumer<Job> action) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.concurrency = Math.max(1, concurrency);
+            this.next = next;
+            this.action = action;
+        }
+
+        /**
+         * Boucle d'un worker : le dépôt dans l'étape suivante attend qu'elle ait de la place.
+         * Un échec, quel qu'il soit, ne concerne que l'utilisateur en cours ; un utilisateur tenu par un worker
+         * interrompu fait échouer son lot.
+         */
+        private void work() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Job job;
+                try {
+                    job = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    action.accept(job);
+                } catch (Throwable e) {
+                    failures.increment();
+                    logger.warn("Tracking failed at stage " + name + " for user " + job.user.getUserName(), e);
+                    job.fail(e);
+                    continue;
+                }
+                processed.increment();
+                if (next == null || job.finished) {
+                    job.complete();
+                    continue;
+                }
+                try {
+                    next.queue.put(job);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    job.fail(new CancellationException("Tracking pipeline was shut down"));
+                }
+            }
+        }
+    }
+
+    /** Utilisateur en cours de traitement et résultats des étapes déjà franchies. */
+    private static final class Job {
+
+        private final User user;
+
+        private final Batch batch;
+
+        /** Position une fois l'utilisateur sorti du pipeline, partagée avec les suivis concurrents. */
+        private final CompletableFuture<VisitedLocation> tracked = new CompletableFuture<>();
+
+        private VisitedLocation visitedLocation;
+
+        private RewardsService.RewardScan scan;
+
+        /** Vrai si l'utilisateur quitte le pipeline avant la dernière étape. */
+        private boolean finished;
+
+        private Job(User user, Batch batch) {
+            this.user = user;
+            this.batch = batch;
+        }
+
+        private void complete() {
+            if (visitedLocation != null) {
+                batch.tracked.incrementAndGet();
+                tracked.complete(visitedLocation);
+            }
+            batch.finish();
+        }
+
+        private void fail(Throwable e) {
+            tracked.completeExceptionally(e);
+            batch.fail(e);
+        }
+    }
+
+    /** Avancement d'un lot : utilisateurs en cours, suivis, premier échec, et échéance éventuelle. */
+    private static final class Batch {
+
+        /** Utilisateurs soumis et non terminés, plus un tant que la soumission est en cours. */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        /** Ouvert lorsque la soumission est finie et que tous les utilisateurs soumis sont terminés. */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private final AtomicInteger tracked = new AtomicInteger();
+
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /** Échéance (System.nanoTime) au-delà de laquelle les utilisateurs ne sont plus localisés. */
+        private final long deadline;
+
+        /** Destinataire des utilisateurs arrivés après l'échéance, null si le lot n'a pas d'échéance. */
+        private final Consumer<User> late;
+
+        /** Vrai si l'appelant a renoncé au lot. */
+        private volatile boolean cancelled;
+
+        private Batch(long deadline, Consumer<User> late) {
+            this.deadline = deadline;
+            this.late = late;
+        }
+
+        private boolean expired() {
+            return cancelled || (late != null && System.nanoTime() - deadline >= 0);
+        }
+
+        /** Termine un utilisateur, ou la soumission. */
+        private void finish() {
+            if (pending.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+
+        private void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+            finish();
+        }
+    }
+}
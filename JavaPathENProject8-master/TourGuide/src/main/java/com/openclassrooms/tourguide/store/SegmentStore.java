@@ -0,0 +1,692 @@
+/**
+ * Stockage persistant, en ajout seul, des positions visitées et des récompenses.
+ * Les enregistrements ont une taille fixe ({@link #RECORD_BYTES} octets, somme de contrôle CRC32C comprise)
+ * et sont ajoutés au segment actif ; au-delà de la taille configurée, le segment est scellé et un nouveau
+ * segment est ouvert. Les lectures passent par des projections mémoire ({@link MappedByteBuffer}) : celles des
+ * segments scellés sont créées une fois, celle du segment actif couvre les enregistrements déjà écrits.
+ * Le compactage réécrit les segments scellés en ne gardant que les dernières positions de chaque utilisateur
+ * et une récompense par attraction ; il est validé par un marqueur, ce qui permet de le terminer au redémarrage
+ * s'il a été interrompu. Une fin de segment tronquée ou corrompue est coupée à l'ouverture.
+ * Les écritures passent par le cache de pages du système : un arrêt brutal de la JVM ne perd rien,
+ * une coupure du système peut perdre les derniers enregistrements du segment actif.
+ */
+package com.openclassrooms.tourguide.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class SegmentStore implements MeterBinder, Closeable {
+
+    /** Taille d'un enregistrement en octets. */
+    public static final int RECORD_BYTES = 64;
+
+    private static final byte LOCATION = 1;
+
+    private static final byte REWARD = 2;
+
+    /** Octets couverts par la somme de contrôle, placée juste après. */
+    private static final int CHECKSUM_OFFSET = RECORD_BYTES - Integer.BYTES;
+
+    /** Taille maximale d'un segment, bornée par celle d'une projection mémoire. */
+    private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String COMPACTING_SUFFIX = ".compacting";
+
+    private static final String COMMIT_MARKER = "compaction.commit";
+
+    /** Ligne du marqueur : segment remplacé par sa version compactée. */
+    private static final String MARKER_REPLACE = "replace ";
+
+    /** Ligne du marqueur : segment vidé par le compactage, à supprimer. */
+    private static final String MARKER_DELETE = "delete ";
+
+    private static final String LOCK_FILE = "store.lock";
+
+    private final Logger logger = LoggerFactory.getLogger(SegmentStore.class);
+
+    private final Path directory;
+
+    /** Taille maximale d'un segment, multiple de la taille d'un enregistrement. */
+    private final long segmentBytes;
+
+    /** Verrou du répertoire, qui empêche deux instances d'écrire dans les mêmes segments. */
+    private final FileChannel lockChannel;
+
+    private final FileLock directoryLock;
+
+    /** Sérialise les ajouts et les changements de la liste des segments. */
+    private final Object writeLock = new Object();
+
+    /** Empêche deux compactages simultanés. */
+    private final Object compactionLock = new Object();
+
+    /** Segments scellés, du plus ancien au plus récent ; liste immuable remplacée par copie. */
+    private volatile List<Segment> sealed;
+
+    /** Segment actif, modifié sous writeLock. */
+    private Segment active;
+
+    private FileChannel activeChannel;
+
+    /** Octets écrits dans le segment actif, lus par les lecteurs sous writeLock. */
+    private long activeSize;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(RECORD_BYTES);
+
+    private final CRC32C writeChecksum = new CRC32C();
+
+    private final LongAdder appended = new LongAdder();
+
+    private final LongAdder compactions = new LongAdder();
+
+    /** Planificateur du compactage périodique, créé à la demande. */
+    private ScheduledExecutorService compactor;
+
+    private boolean closed;
+
+    private SegmentStore(Path directory, long segmentBytes, FileChannel lockChannel, FileLock directoryLock) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.lockChannel = lockChannel;
+        this.directoryLock = directoryLock;
+    }
+
+    /**
+     * Ouvre le stockage d'un répertoire, en le créant au besoin.
+     * Un compactage validé mais inachevé est terminé, un compactage non validé est abandonné,
+     * et la fin du dernier segment est coupée au premier enregistrement incomplet ou corrompu.
+     * @param directory répertoire des segments.
+     * @param segmentBytes taille maximale d'un segment en octets, arrondie à un nombre entier d'enregistrements.
+     * @return stockage ouvert.
+     * @throws UncheckedIOException si le répertoire ne peut pas être lu ou verrouillé.
+     * @throws IllegalStateException si le répertoire est déjà ouvert par une autre instance.
+     */
+    public static SegmentStore open(Path directory, long segmentBytes) {
+        if (segmentBytes < RECORD_BYTES || segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be between " + RECORD_BYTES + " and "
+                    + MAX_SEGMENT_BYTES + ": " + segmentBytes);
+        }
+        try {
+            Files.createDirectories(directory);
+            FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock;
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Store already open: " + directory);
+            }
+            SegmentStore store = new SegmentStore(directory, segmentBytes - segmentBytes % RECORD_BYTES,
+                    lockChannel, lock);
+            try {
+                store.recover();
+            } catch (IOException | RuntimeException e) {
+                lockChannel.close();
+                throw e;
+            }
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ajoute une position visitée.
+     * @param visitedLocation position, avec l'identifiant de l'utilisateur.
+     */
+    public void appendLocation(VisitedLocation visitedLocation) {
+        append(LOCATION, visitedLocation, 0, 0);
+    }
+
+    /**
+     * Ajoute une récompense. L'attraction est désignée par la clé de son nom ({@link #attractionKey}) :
+     * ses identifiants changent d'un démarrage à l'autre et sa position dépend de l'ordre du catalogue.
+     * @param visitedLocation position qui a donné lieu à la récompense.
+     * @param attractionName nom de l'attraction.
+     * @param rewardPoints points attribués.
+     */
+    public void appendReward(VisitedLocation visitedLocation, String attractionName, int rewardPoints) {
+        append(REWARD, visitedLocation, attractionKey(attractionName), rewardPoints);
+    }
+
+    /**
+     * Retourne la clé stable d'une attraction enregistrée avec ses récompenses : empreinte FNV-1a 64 bits
+     * de son nom en UTF-8.
+     * @param attractionName nom de l'attraction.
+     * @return clé de l'attraction.
+     */
+    public static long attractionKey(String attractionName) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : attractionName.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Retourne la dernière position de chaque utilisateur, sans charger le reste de l'historique.
+     * Les segments sont parcourus du plus récent au plus ancien.
+     * @return dernière position par identifiant d'utilisateur.
+     */
+    public Map<UUID, VisitedLocation> loadLatestLocations() {
+        Map<UUID, VisitedLocation> latest = new HashMap<>();
+        List<ByteBuffer> views = views();
+        CRC32C checksum = new CRC32C();
+        for (int i = views.size() - 1; i >= 0; i--) {
+            ByteBuffer view = views.get(i);
+            for (int offset = view.limit() - RECORD_BYTES; offset >= 0; offset -= RECORD_BYTES) {
+                if (view.get(offset) == LOCATION && isValid(view, offset, checksum)) {
+                    UUID userId = userId(view, offset);
+                    if (!latest.containsKey(userId)) {
+                        latest.put(userId, visitedLocation(view, offset, userId));
+                    }
+                }
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Parcourt les récompenses enregistrées, de la plus ancienne à la plus récente.
+     * @param visitor fonction appelée pour chaque récompense.
+     */
+    public void forEachReward(RewardVisitor visitor) {
+        CRC32C checksum = new CRC32C();
+        for (ByteBuffer view : views()) {
+            for (int offset = 0; offset < view.limit(); offset += RECORD_BYTES) {
+                if (view.get(offset) == REWARD && isValid(view, offset, checksum)) {
+                    UUID userId = userId(view, offset);
+                    visitor.visit(userId, visitedLocation(view, offset, userId), view.getLong(offset + 48),
+                            view.getInt(offset + 4));
+                }
+            }
+        }
+    }
+
+    /**
+     * Compacte les segments : le segment actif est scellé, puis les segments scellés sont réécrits
+     * en ne gardant que les maxLocationsPerUser dernières positions de chaque utilisateur et la première
+     * récompense de chaque attraction. Les ajouts se poursuivent pendant le compactage.
+     * @param maxLocationsPerUser nombre de positions conservées par utilisateur.
+     * @throws UncheckedIOException si les segments compactés ne peuvent pas être écrits.
+     */
+    public void compact(int maxLocationsPerUser) {
+        synchronized (compactionLock) {
+            try {
+                List<Segment> inputs;
+                synchronized (writeLock) {
+                    if (closed) {
+                        return;
+                    }
+                    if (activeSize > 0) {
+                        roll();
+                    }
+                    inputs = sealed;
+                }
+                if (inputs.isEmpty()) {
+                    return;
+                }
+                long before = bytes(inputs);
+                List<Segment> outputs = rewrite(inputs, Math.max(0, maxLocationsPerUser));
+                synchronized (writeLock) {
+                    List<Segment> current = new ArrayList<>(outputs);
+                    current.addAll(sealed.subList(inputs.size(), sealed.size()));
+                    sealed = List.copyOf(current);
+                }
+                compactions.increment();
+                logger.debug("Compacted " + inputs.size() + " segments from " + before + " to "
+                        + bytes(outputs) + " bytes.");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Planifie le compactage périodique.
+     * @param interval période entre deux compactages ; nulle ou négative pour ne pas compacter.
+     * @param maxLocationsPerUser nombre de positions conservées par utilisateur.
+     */
+    public synchronized void scheduleCompaction(Duration interval, int maxLocationsPerUser) {
+        if (interval == null || interval.isZero() || interval.isNegative() || compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "store-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact(maxLocationsPerUser);
+            } catch (RuntimeException e) {
+                logger.warn("Store compaction failed", e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Retourne le nombre de segments, actif compris.
+     * @return nombre de segments.
+     */
+    public int segmentCount() {
+        return sealed.size() + 1;
+    }
+
+    /**
+     * Retourne la taille des segments sur disque.
+     * @return octets occupés par les enregistrements.
+     */
+    public long sizeBytes() {
+        synchronized (writeLock) {
+            return bytes(sealed) + activeSize;
+        }
+    }
+
+    /**
+     * Force l'écriture du segment actif sur le disque.
+     */
+    public void flush() {
+        synchronized (writeLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                activeChannel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Arrête le compactage, force l'écriture du segment actif et libère le répertoire.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+        }
+        synchronized (compactionLock) {
+            synchronized (writeLock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    activeChannel.force(false);
+                    activeChannel.close();
+                    directoryLock.release();
+                    lockChannel.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Enregistre les métriques du stockage : nombre et taille des segments, enregistrements ajoutés, compactages.
+     * @param registry registre Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tourguide.store.segments", this, SegmentStore::segmentCount).register(registry);
+        Gauge.builder("tourguide.store.size", this, SegmentStore::sizeBytes).baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("tourguide.store.records.appended", appended, LongAdder::sum).register(registry);
+        FunctionCounter.builder("tourguide.store.compactions", compactions, LongAdder::sum).register(registry);
+    }
+
+    private void append(byte type, VisitedLocation visitedLocation, long attractionKey, int rewardPoints) {
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IllegalStateException("Store closed: " + directory);
+            }
+            try {
+                if (activeSize + RECORD_BYTES > segmentBytes) {
+                    roll();
+                }
+                ByteBuffer record = writeBuffer.clear();
+                record.put(0, type);
+                record.putInt(4, rewardPoints);
+                record.putLong(8, visitedLocation.userId.getMostSignificantBits());
+                record.putLong(16, visitedLocation.userId.getLeastSignificantBits());
+                record.putDouble(24, visitedLocation.location.latitude);
+                record.putDouble(32, visitedLocation.location.longitude);
+                record.putLong(40, visitedLocation.timeVisited.getTime());
+                record.putLong(48, attractionKey);
+                record.putInt(56, 0);
+                writeChecksum.reset();
+                writeChecksum.update(record.limit(CHECKSUM_OFFSET));
+                record.clear().putInt(CHECKSUM_OFFSET, (int) writeChecksum.getValue());
+                while (record.hasRemaining()) {
+                    activeChannel.write(record, activeSize + record.position());
+                }
+                activeSize += RECORD_BYTES;
+                appended.increment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /** Scelle le segment actif et ouvre le suivant. Appelé sous writeLock. */
+    private void roll() throws IOException {
+        activeChannel.force(false);
+        activeChannel.close();
+        List<Segment> current = new ArrayList<>(sealed);
+        current.add(Segment.mapped(active.id(), active.path()));
+        sealed = List.copyOf(current);
+        openActive(active.id() + 1);
+    }
+
+    private void openActive(long id) throws IOException {
+        active = new Segment(id, segmentPath(id), null);
+        activeChannel = FileChannel.open(active.path(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        activeSize = activeChannel.size();
+    }
+
+    /** Vues en lecture de tous les segments, limitées aux enregistrements écrits à l'instant de l'appel. */
+    private List<ByteBuffer> views() {
+        List<Segment> segments;
+        long size;
+        Path activePath;
+        synchronized (writeLock) {
+            if (closed) {
+                throw new IllegalStateException("Store closed: " + directory);
+            }
+            segments = sealed;
+            size = activeSize;
+            activePath = active.path();
+        }
+        List<ByteBuffer> views = new ArrayList<>(segments.size() + 1);
+        segments.forEach(segment -> views.add(segment.mapping().duplicate()));
+        try {
+            views.add(map(activePath, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return views;
+    }
+
+    /** Ouverture : termine ou abandonne un compactage interrompu, mappe les segments scellés, ouvre le dernier. */
+    private void recover() throws IOException {
+        Path marker = directory.resolve(COMMIT_MARKER);
+        if (Files.exists(marker)) {
+            finishCompaction(marker);
+        }
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(COMPACTING_SUFFIX)) {
+                    Files.delete(file);
+                } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    ids.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                }
+            }
+        }
+        ids.sort(null);
+        List<Segment> segments = new ArrayList<>();
+        for (int i = 0; i < ids.size() - 1; i++) {
+            segments.add(Segment.mapped(ids.get(i), segmentPath(ids.get(i))));
+        }
+        sealed = List.copyOf(segments);
+        openActive(ids.isEmpty() ? 1 : ids.get(ids.size() - 1));
+        long valid = validLength(map(active.path(), activeSize - activeSize % RECORD_BYTES));
+        if (valid < activeSize) {
+            logger.warn("Truncating " + (activeSize - valid) + " bytes of incomplete records in " + active.path());
+            activeChannel.truncate(valid);
+            activeSize = valid;
+        }
+    }
+
+    /**
+     * Réécrit les segments donnés dans des fichiers temporaires, valide le compactage par le marqueur,
+     * puis remplace les segments d'origine.
+     */
+    private List<Segment> rewrite(List<Segment> inputs, int maxLocationsPerUser) throws IOException {
+        CRC32C checksum = new CRC32C();
+        Map<UUID, int[]> locationCounts = new HashMap<>();
+        for (Segment segment : inputs) {
+            ByteBuffer view = segment.mapping().duplicate();
+            for (int offset = 0; offset < view.limit(); offset += RECORD_BYTES) {
+                if (view.get(offset) == LOCATION && isValid(view, offset, checksum)) {
+                    locationCounts.computeIfAbsent(userId(view, offset), id -> new int[2])[0]++;
+                }
+            }
+        }
+
+        Set<RewardKey> rewards = new HashSet<>();
+        List<Path> written = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_BYTES * 1024);
+        FileChannel out = null;
+        long outSize = 0;
+        try {
+            for (Segment segment : inputs) {
+                ByteBuffer view = segment.mapping().duplicate();
+                for (int offset = 0; offset < view.limit(); offset += RECORD_BYTES) {
+                    byte type = view.get(offset);
+                    if ((type != LOCATION && type != REWARD) || !isValid(view, offset, checksum)) {
+                        continue;
+                    }
+                    UUID userId = userId(view, offset);
+                    if (type == LOCATION) {
+                        int[] counts = locationCounts.get(userId);
+                        if (++counts[1] <= counts[0] - maxLocationsPerUser) {
+                            continue;
+                        }
+                    } else if (!rewards.add(new RewardKey(userId, view.getLong(offset + 48)))) {
+                        continue;
+                    }
+                    // Chaque segment compacté prend le nom d'un segment d'origine, donc il n'y en a jamais plus
+                    if (out == null || (outSize + buffer.position() + RECORD_BYTES > segmentBytes
+                            && written.size() < inputs.size())) {
+                        if (out != null) {
+                            drain(buffer, out);
+                            out.force(false);
+                            out.close();
+                        }
+                        Path path = compactingPath(inputs.get(written.size()).id());
+                        written.add(path);
+                        out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                StandardOpenOption.TRUNCATE_EXISTING);
+                        outSize = 0;
+                    }
+                    if (!buffer.hasRemaining()) {
+                        outSize += buffer.position();
+                        drain(buffer, out);
+                    }
+                    buffer.put(view.slice(offset, RECORD_BYTES));
+                }
+            }
+            if (out != null) {
+                drain(buffer, out);
+                out.force(false);
+            }
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            lines.add((i < written.size() ? MARKER_REPLACE : MARKER_DELETE) + inputs.get(i).id());
+        }
+        Path marker = directory.resolve(COMMIT_MARKER);
+        Path pendingMarker = directory.resolve(COMMIT_MARKER + COMPACTING_SUFFIX);
+        Files.write(pendingMarker, lines);
+        try (FileChannel channel = FileChannel.open(pendingMarker, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(pendingMarker, marker, StandardCopyOption.ATOMIC_MOVE);
+        finishCompaction(marker);
+
+        List<Segment> outputs = new ArrayList<>(written.size());
+        for (int i = 0; i < written.size(); i++) {
+            long id = inputs.get(i).id();
+            outputs.add(Segment.mapped(id, segmentPath(id)));
+        }
+        return outputs;
+    }
+
+    /**
+     * Remplace les segments marqués « replace » par leur version compactée, si elle n'a pas encore été
+     * renommée, supprime ceux marqués « delete », puis le marqueur. Un segment n'est jamais supprimé parce que
+     * sa version compactée manque : elle a pu être renommée avant l'interruption. Peut donc être rejoué sans risque.
+     */
+    private void finishCompaction(Path marker) throws IOException {
+        for (String line : Files.readAllLines(marker)) {
+            if (line.startsWith(MARKER_REPLACE)) {
+                long id = Long.parseLong(line.substring(MARKER_REPLACE.length()).trim());
+                Path compacted = compactingPath(id);
+                if (Files.exists(compacted)) {
+                    Files.move(compacted, segmentPath(id), StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            } else if (line.startsWith(MARKER_DELETE)) {
+                Files.deleteIfExists(segmentPath(Long.parseLong(line.substring(MARKER_DELETE.length()).trim())));
+            } else if (!line.isBlank()) {
+                throw new IOException("Unexpected line in " + marker + ": " + line);
+            }
+        }
+        Files.delete(marker);
+    }
+
+    private void drain(ByteBuffer buffer, FileChannel out) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /** Longueur du préfixe d'enregistrements valides d'une vue. */
+    private static long validLength(ByteBuffer view) {
+        CRC32C checksum = new CRC32C();
+        int offset = 0;
+        while (offset < view.limit() && isValid(view, offset, checksum)) {
+            offset += RECORD_BYTES;
+        }
+        return offset;
+    }
+
+    private static boolean isValid(ByteBuffer view, int offset, CRC32C checksum) {
+        checksum.reset();
+        checksum.update(view.slice(offset, CHECKSUM_OFFSET));
+        return (int) checksum.getValue() == view.getInt(offset + CHECKSUM_OFFSET);
+    }
+
+    private static UUID userId(ByteBuffer view, int offset) {
+        return new UUID(view.getLong(offset + 8), view.getLong(offset + 16));
+    }
+
+    private static VisitedLocation visitedLocation(ByteBuffer view, int offset, UUID userId) {
+        return new VisitedLocation(userId,
+                new Location(view.getDouble(offset + 24), view.getDouble(offset + 32)),
+                new Date(view.getLong(offset + 40)));
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private static long bytes(List<Segment> segments) {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.mapping().limit();
+        }
+        return total;
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private Path compactingPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, COMPACTING_SUFFIX));
+    }
+
+    /**
+     * Fonction de parcours des récompenses enregistrées.
+     */
+    @FunctionalInterface
+    public interface RewardVisitor {
+
+        /**
+         * Reçoit une récompense.
+         * @param userId identifiant de l'utilisateur.
+         * @param visitedLocation position qui a donné lieu à la récompense.
+         * @param attractionKey clé du nom de l'attraction ({@link #attractionKey}).
+         * @param rewardPoints points attribués.
+         */
+        void visit(UUID userId, VisitedLocation visitedLocation, long attractionKey, int rewardPoints);
+    }
+
+    /** Segment de l'historique ; la projection mémoire n'existe que pour les segments scellés. */
+    private record Segment(long id, Path path, MappedByteBuffer mapping) {
+
+        /** Segment scellé, projeté en mémoire une fois pour toutes : la projection survit à son remplacement. */
+        private static Segment mapped(long id, Path path) throws IOException {
+            long size = Files.size(path);
+            return new Segment(id, path, map(path, size - size % RECORD_BYTES));
+        }
+    }
+
+    /** Récompense d'un utilisateur pour une attraction, conservée une fois lors du compactage. */
+    private record RewardKey(UUID userId, long attractionKey) {
+    }
+}
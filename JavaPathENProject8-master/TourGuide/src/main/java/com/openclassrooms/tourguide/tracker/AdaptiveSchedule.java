@@ -0,0 +1,178 @@
+/**
+ * Échéancier du suivi adaptatif : chaque utilisateur a sa prochaine échéance, dans une file de priorité
+ * qui délivre l'utilisateur dont l'échéance est la plus proche une fois celle-ci atteinte.
+ * Après chaque suivi, l'intervalle de l'utilisateur est recalculé : doublé s'il n'a pas bougé,
+ * divisé par deux s'il se déplace, ramené au minimum près d'une attraction, toujours entre les bornes configurées.
+ */
+package com.openclassrooms.tourguide.tracker;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.user.User;
+
+public class AdaptiveSchedule {
+
+    /** Utilisateurs planifiés, par échéance. */
+    private final DelayQueue<Entry> queue = new DelayQueue<>();
+
+    /** Utilisateurs inscrits, planifiés ou en cours de suivi. */
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long initialIntervalNanos;
+
+    private final long minIntervalNanos;
+
+    private final long maxIntervalNanos;
+
+    private final double stationaryMiles;
+
+    /**
+     * Constructeur de l'échéancier.
+     * @param config intervalle initial (période), bornes et seuil d'immobilité.
+     */
+    public AdaptiveSchedule(TourGuideProperties.Tracker config) {
+        this.minIntervalNanos = Math.max(1, config.getMinInterval().toNanos());
+        this.maxIntervalNanos = Math.max(minIntervalNanos, config.getMaxInterval().toNanos());
+        this.initialIntervalNanos = clamp(config.getPollingInterval().toNanos());
+        this.stationaryMiles = config.getStationaryMiles();
+    }
+
+    /**
+     * Inscrit un utilisateur s'il ne l'est pas encore, avec l'intervalle initial.
+     * @param user utilisateur.
+     * @param dueNanos première échéance (System.nanoTime).
+     * @return true si l'utilisateur vient d'être inscrit.
+     */
+    public boolean enrol(User user, long dueNanos) {
+        Entry entry = new Entry(user, initialIntervalNanos, dueNanos);
+        if (entries.putIfAbsent(user.getUserId(), entry) != null) {
+            return false;
+        }
+        queue.put(entry);
+        return true;
+    }
+
+    /**
+     * Attend l'utilisateur dont l'échéance est la plus proche et le retire de la file.
+     * @return entrée échue.
+     * @throws InterruptedException si le thread est interrompu pendant l'attente.
+     */
+    public Entry take() throws InterruptedException {
+        return queue.take();
+    }
+
+    /**
+     * Replace un utilisateur dans la file après son suivi.
+     * @param entry entrée retirée par {@link #take()}.
+     * @param intervalNanos nouvel intervalle.
+     */
+    public void reschedule(Entry entry, long intervalNanos) {
+        entry.intervalNanos = intervalNanos;
+        entry.dueNanos = System.nanoTime() + intervalNanos;
+        queue.put(entry);
+    }
+
+    /**
+     * Calcule l'intervalle suivant d'un utilisateur.
+     * @param currentNanos intervalle courant.
+     * @param movedMiles distance parcourue depuis la position précédente, NaN si elle est inconnue.
+     * @param nearAttraction true si une attraction est proche de la nouvelle position.
+     * @return intervalle suivant, entre les bornes configurées.
+     */
+    public long nextInterval(long currentNanos, double movedMiles, boolean nearAttraction) {
+        if (nearAttraction) {
+            return minIntervalNanos;
+        }
+        if (Double.isNaN(movedMiles) || movedMiles >= stationaryMiles) {
+            return clamp(currentNanos / 2);
+        }
+        return clamp(currentNanos > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : currentNanos * 2);
+    }
+
+    /**
+     * Retourne le nombre d'utilisateurs inscrits.
+     * @return taille de l'échéancier.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retourne le nombre d'utilisateurs en attente de leur échéance.
+     * @return utilisateurs planifiés, hors suivis en cours.
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Vide l'échéancier.
+     */
+    public void clear() {
+        queue.clear();
+        entries.clear();
+    }
+
+    private long clamp(long intervalNanos) {
+        return Math.min(maxIntervalNanos, Math.max(minIntervalNanos, intervalNanos));
+    }
+
+    /** Utilisateur planifié, avec son intervalle courant et sa prochaine échéance. */
+    public static final class Entry implements Delayed {
+
+        private final User user;
+
+        private volatile long intervalNanos;
+
+        private volatile long dueNanos;
+
+        private Entry(User user, long intervalNanos, long dueNanos) {
+            this.user = user;
+            this.intervalNanos = intervalNanos;
+            this.dueNanos = dueNanos;
+        }
+
+        /**
+         * Retourne l'utilisateur planifié.
+         * @return utilisateur.
+         */
+        public User user() {
+            return user;
+        }
+
+        /**
+         * Retourne l'intervalle courant.
+         * @return intervalle en nanosecondes.
+         */
+        public long intervalNanos() {
+            return intervalNanos;
+        }
+
+        /**
+         * Retourne l'échéance.
+         * @return échéance (System.nanoTime).
+         */
+        public long dueNanos() {
+            return dueNanos;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof Entry entry) {
+                return Long.compare(dueNanos - entry.dueNanos, 0);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -1,84 +1,314 @@
 /**
  * Service de suivi automatique des utilisateurs.
- * Ce thread exécute périodiquement le tracking de tous les utilisateurs enregistrés dans le service TourGuideService.
+ * Un cycle est planifié à cadence fixe : les utilisateurs traversent le pipeline de suivi du service
+ * (localisation, historique, proximité, points), dans la limite d'une échéance par cycle.
+ * Le retard de chaque cycle sur sa date planifiée, sa durée et le nombre d'utilisateurs suivis sont publiés
+ * comme métriques Micrometer.
+ * En suivi adaptatif, il n'y a plus de cycle commun : chaque utilisateur est suivi à sa propre échéance
+ * ({@link AdaptiveSchedule}), dans la limite d'un budget d'appels à gpsUtil par seconde ; la période sert alors
+ * à inscrire les nouveaux utilisateurs.
  */
 package com.openclassrooms.tourguide.tracker;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
 import org.apache.commons.lang3.time.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import gpsUtil.location.Location;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import com.openclassrooms.tourguide.concurrent.CallRateLimiter;
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
 import com.openclassrooms.tourguide.service.TourGuideService;
 import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
 
-public class Tracker extends Thread {
+public class Tracker implements Runnable, MeterBinder {
 
     private final Logger logger = LoggerFactory.getLogger(Tracker.class);
 
-    /** Intervalle entre chaque cycle de suivi en secondes (5 minutes). */
-    private static final long trackingPollingInterval = TimeUnit.MINUTES.toSeconds(5);
+    /** Planificateur des cycles à cadence fixe. */
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
 
-    /** Thread unique pour exécuter le tracking en arrière-plan. */
-    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    /** Workers du suivi adaptatif : pool borné ou un thread virtuel par utilisateur ; null en suivi par cycle. */
+    private final ExecutorService workers;
 
     /** Service principal contenant la logique de localisation utilisateur. */
     private final TourGuideService tourGuideService;
 
-    /** Indicateur pour arrêter le thread proprement. */
-    private boolean stop = false;
+    /** Nombre d'utilisateurs suivis simultanément en suivi adaptatif. */
+    private final int parallelism;
+
+    /** Durée maximale d'un cycle en nanosecondes. */
+    private final long cycleDeadlineNanos;
+
+    /** Utilisateurs non atteints avant l'échéance, traités en priorité au cycle suivant. */
+    private final Queue<User> carryOver = new ConcurrentLinkedQueue<>();
+
+    /** Intervalle entre deux cycles en nanosecondes. */
+    private final long pollingIntervalNanos;
+
+    /** Date planifiée du prochain cycle (System.nanoTime), lue et écrite par le planificateur. */
+    private long nextCycleNanos;
+
+    /** Retard du dernier cycle, ou du dernier utilisateur en suivi adaptatif, sur sa date planifiée, en nanosecondes. */
+    private volatile long lagNanos;
+
+    /** Durée du dernier cycle terminé, en nanosecondes. */
+    private volatile long lastCycleNanos;
+
+    /** Utilisateurs suivis pendant le dernier cycle terminé. */
+    private volatile int lastCycleTracked;
+
+    /** Échéancier par utilisateur en suivi adaptatif, null en suivi par cycles. */
+    private final AdaptiveSchedule adaptiveSchedule;
+
+    /** Budget d'appels à gpsUtil du suivi adaptatif. */
+    private final CallRateLimiter gpsBudget;
+
+    /** Suivis adaptatifs simultanés, au plus le parallélisme. */
+    private final Semaphore adaptiveSlots;
+
+    /** Rayon de recherche des attractions proches en suivi adaptatif. */
+    private final double attractionRadiusMiles;
+
+    /** Thread qui confie les utilisateurs échus aux workers, en suivi adaptatif. */
+    private final Thread dispatcher;
+
+    /** Utilisateurs suivis en suivi adaptatif. */
+    private final LongAdder adaptiveTracked = new LongAdder();
+
+    /** Indicateur pour arrêter le tracking proprement. */
+    private volatile boolean stop = false;
 
     /**
-     * Constructeur du Tracker.
-     * Lance automatiquement le thread de suivi à l'initialisation.
-     * 
+     * Constructeur du Tracker avec la configuration par défaut.
+     * Lance automatiquement la planification des cycles.
+     *
      * @param tourGuideService service TourGuide associé
      */
     public Tracker(TourGuideService tourGuideService) {
+        this(tourGuideService, new TourGuideProperties.Tracker(), ExecutionMode.PLATFORM);
+    }
+
+    /**
+     * Constructeur du Tracker.
+     * Lance automatiquement la planification des cycles.
+     *
+     * @param tourGuideService service TourGuide associé
+     * @param config paramètres du tracker
+     * @param executionMode mode d'exécution des workers
+     */
+    public Tracker(TourGuideService tourGuideService, TourGuideProperties.Tracker config, ExecutionMode executionMode) {
         this.tourGuideService = tourGuideService;
-        executorService.submit(this);
+        this.parallelism = Math.max(1, config.getParallelism());
+        this.cycleDeadlineNanos = config.getCycleDeadline().toNanos();
+        this.pollingIntervalNanos = config.getPollingInterval().toNanos();
+        this.nextCycleNanos = System.nanoTime() + config.getInitialDelay().toNanos();
+        this.attractionRadiusMiles = config.getAttractionRadiusMiles();
+        if (config.isAdaptive()) {
+            this.workers = executionMode.newExecutor(parallelism);
+            this.adaptiveSchedule = new AdaptiveSchedule(config);
+            this.gpsBudget = new CallRateLimiter(config.getGpsCallsPerSecond());
+            this.adaptiveSlots = new Semaphore(parallelism);
+            this.dispatcher = executionMode.newThreadFactory("tracker-dispatch").newThread(this::dispatch);
+            dispatcher.start();
+            scheduler.scheduleAtFixedRate(this::enrolUsers,
+                    config.getInitialDelay().toMillis(),
+                    config.getPollingInterval().toMillis(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.workers = null;
+            this.adaptiveSchedule = null;
+            this.gpsBudget = null;
+            this.adaptiveSlots = null;
+            this.dispatcher = null;
+            scheduler.scheduleAtFixedRate(this,
+                    config.getInitialDelay().toMillis(),
+                    config.getPollingInterval().toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
-     * Arrête proprement le thread de tracking.
-     * Ferme l'executor associé et interrompt la boucle de suivi.
+     * Arrête proprement le tracking.
+     * Annule les cycles planifiés et interrompt les workers en cours.
      */
     public void stopTracking() {
         stop = true;
-        executorService.shutdownNow();
+        scheduler.shutdownNow();
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+            workers.shutdownNow();
+        }
     }
 
     /**
-     * Méthode principale du thread.
-     * Lance le suivi de localisation pour tous les utilisateurs à intervalles réguliers.
+     * Retourne le nombre d'utilisateurs reportés au prochain cycle.
+     * @return taille du report.
+     */
+    public int getCarryOverSize() {
+        return carryOver.size();
+    }
+
+    /**
+     * Exécute un cycle de suivi.
+     * Les utilisateurs reportés du cycle précédent sont soumis au pipeline en premier, puis ceux du registre,
+     * lus sans copie au fil de la soumission ; ceux que le pipeline n'a pas localisés avant l'échéance
+     * sont reportés au cycle suivant.
      */
     @Override
     public void run() {
-        StopWatch stopWatch = new StopWatch();
-        while (true) {
-            if (Thread.currentThread().isInterrupted() || stop) {
-                logger.debug("Tracker stopping");
-                break;
+        if (Thread.currentThread().isInterrupted() || stop) {
+            logger.debug("Tracker stopping");
+            return;
+        }
+
+        long start = System.nanoTime();
+        lagNanos = Math.max(0, start - nextCycleNanos);
+        nextCycleNanos += pollingIntervalNanos;
+
+        long deadline = start + cycleDeadlineNanos;
+        UserRegistry registry = tourGuideService.getUserRegistry();
+        Set<User> carriedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<User> carried = new ArrayList<>();
+        User user;
+        while ((user = carryOver.poll()) != null) {
+            if (carriedSet.add(user)) {
+                carried.add(user);
+            }
+        }
+        Iterable<User> users = () -> Stream.concat(carried.stream(),
+                registry.users().stream().filter(registered -> !carriedSet.contains(registered))).iterator();
+        logger.debug("Begin Tracker. Tracking " + registry.size() + " users.");
+
+        StopWatch stopWatch = StopWatch.createStarted();
+        try {
+            lastCycleTracked = tourGuideService.trackUsersBefore(users, deadline, carryOver::add);
+        } catch (CancellationException | RejectedExecutionException e) {
+            logger.debug("Tracker cycle interrupted");
+            return;
+        }
+        stopWatch.stop();
+        lastCycleNanos = stopWatch.getNanoTime();
+
+        logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime())
+                + " seconds. " + carryOver.size() + " users carried over.");
+    }
+
+    /**
+     * Suivi adaptatif : inscrit dans l'échéancier les utilisateurs du registre qui n'y sont pas encore,
+     * avec une échéance immédiate.
+     */
+    private void enrolUsers() {
+        long now = System.nanoTime();
+        int enrolled = 0;
+        for (User user : tourGuideService.getUserRegistry().users()) {
+            if (adaptiveSchedule.enrol(user, now)) {
+                enrolled++;
+            }
+        }
+        if (enrolled > 0) {
+            logger.debug("Adaptive tracker enrolled " + enrolled + " users, " + adaptiveSchedule.size() + " scheduled.");
+        }
+    }
+
+    /**
+     * Suivi adaptatif : délivre les utilisateurs par ordre d'échéance, en respectant le budget d'appels
+     * à gpsUtil et le nombre de workers ; le retard de chaque utilisateur sur son échéance est publié.
+     */
+    private void dispatch() {
+        try {
+            while (!stop) {
+                AdaptiveSchedule.Entry entry = adaptiveSchedule.take();
+                gpsBudget.acquire();
+                adaptiveSlots.acquire();
+                lagNanos = Math.max(0, System.nanoTime() - entry.dueNanos());
+                try {
+                    workers.execute(() -> trackAdaptively(entry));
+                } catch (RejectedExecutionException e) {
+                    adaptiveSlots.release();
+                    return;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.debug("Adaptive tracker stopping");
+    }
 
-            List<User> users = tourGuideService.getAllUsers();
-            logger.debug("Begin Tracker. Tracking " + users.size() + " users.");
-            stopWatch.start();
-            users.forEach(u -> tourGuideService.trackUserLocation(u));
-            stopWatch.stop();
-            logger.debug("Tracker Time Elapsed: " + TimeUnit.MILLISECONDS.toSeconds(stopWatch.getTime()) + " seconds.");
-            stopWatch.reset();
-
-            try {
-                logger.debug("Tracker sleeping");
-                TimeUnit.SECONDS.sleep(trackingPollingInterval);
-            } catch (InterruptedException e) {
-                break;
+    /**
+     * Suit un utilisateur échu puis le replanifie avec un intervalle adapté à son déplacement
+     * depuis la position précédente et à la proximité d'une attraction.
+     * @param entry utilisateur échu et intervalle courant
+     */
+    private void trackAdaptively(AdaptiveSchedule.Entry entry) {
+        User user = entry.user();
+        long interval = entry.intervalNanos();
+        try {
+            Location previous = user.getVisitedLocationHistory().lastLocation();
+            Location current = tourGuideService.trackUserLocation(user).location;
+            adaptiveTracked.increment();
+            double movedMiles = previous == null ? Double.NaN
+                    : DistanceKernel.miles(previous.latitude, previous.longitude, current.latitude, current.longitude);
+            boolean nearAttraction = !tourGuideService.getAttractionsWithin(current, attractionRadiusMiles).isEmpty();
+            interval = adaptiveSchedule.nextInterval(interval, movedMiles, nearAttraction);
+        } catch (RuntimeException e) {
+            logger.warn("Tracking failed for user " + user.getUserName(), e);
+        } finally {
+            adaptiveSlots.release();
+            if (!stop) {
+                adaptiveSchedule.reschedule(entry, interval);
             }
         }
     }
+
+    /**
+     * Enregistre les métriques du tracker : utilisateurs suivis et reportés, retard sur la planification,
+     * durée du dernier cycle ; en suivi adaptatif, file des workers, utilisateurs planifiés et suivis.
+     * @param registry registre Micrometer.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("tourguide.tracker.users.tracked", this, tracker -> tracker.lastCycleTracked)
+                .register(registry);
+        Gauge.builder("tourguide.tracker.users.carried.over", this, Tracker::getCarryOverSize)
+                .register(registry);
+        TimeGauge.builder("tourguide.tracker.lag", this, TimeUnit.NANOSECONDS, tracker -> tracker.lagNanos)
+                .register(registry);
+        TimeGauge.builder("tourguide.tracker.cycle.duration", this, TimeUnit.NANOSECONDS,
+                tracker -> tracker.lastCycleNanos).register(registry);
+        if (adaptiveSchedule != null) {
+            new ExecutorServiceMetrics(workers, "tracker", Tags.empty()).bindTo(registry);
+            Gauge.builder("tourguide.tracker.scheduled.users", adaptiveSchedule, AdaptiveSchedule::size)
+                    .register(registry);
+            FunctionCounter.builder("tourguide.tracker.adaptive.tracked", adaptiveTracked, LongAdder::sum)
+                    .register(registry);
+        }
+    }
 }
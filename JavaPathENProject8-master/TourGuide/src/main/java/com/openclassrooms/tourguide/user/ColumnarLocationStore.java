@@ -0,0 +1,378 @@
+/**
+ * Stockage en colonnes des historiques de positions de tous les utilisateurs.
+ * Chaque utilisateur reçoit un emplacement (slot) dont les positions sont rangées dans des colonnes primitives
+ * (latitude, longitude, date) : une position coûte 24 octets sans aucun objet, au lieu de trois objets
+ * par {@link VisitedLocation}. Les colonnes d'un slot sont allouées à sa première position et doublent
+ * lorsqu'elles sont pleines, jusqu'à la capacité ; la mémoire réservée suit donc le nombre de positions
+ * effectivement retenues, et non utilisateurs × capacité.
+ * Les slots sont regroupés en segments : les écritures d'un segment sont sérialisées par un verrou,
+ * les lectures sont optimistes.
+ */
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class ColumnarLocationStore {
+
+    /** Nombre de slots par segment. */
+    private static final int SEGMENT_SLOTS = 256;
+
+    /** Longueur des colonnes d'un slot à sa première position. */
+    private static final int INITIAL_SLOT_LENGTH = 4;
+
+    /** Nombre de positions par slot. */
+    private final int capacity;
+
+    /** Ancienneté maximale en millisecondes, 0 si illimitée. */
+    private final long maxAgeMillis;
+
+    /** Segments alloués, remplacés par copie lors de l'ajout d'un segment. */
+    private volatile Segment[] segments = new Segment[0];
+
+    private final AtomicInteger nextSlot = new AtomicInteger();
+
+    /**
+     * Constructeur du stockage.
+     * @param capacity nombre maximal de positions conservées par utilisateur.
+     * @param maxAge ancienneté maximale par rapport à la position la plus récente, null pour aucune limite.
+     */
+    public ColumnarLocationStore(int capacity, Duration maxAge) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.maxAgeMillis = maxAge == null || maxAge.isNegative() ? 0 : maxAge.toMillis();
+    }
+
+    /**
+     * Réserve un slot pour un utilisateur et retourne l'historique qui le lit et l'écrit.
+     * @param userId identifiant de l'utilisateur, utilisé pour reconstruire les {@link VisitedLocation}.
+     * @return historique adossé aux colonnes.
+     */
+    public LocationHistory allocate(UUID userId) {
+        int slot = nextSlot.getAndIncrement();
+        return new SlotHistory(userId, segment(slot / SEGMENT_SLOTS), slot % SEGMENT_SLOTS);
+    }
+
+    /**
+     * Retourne le nombre de slots réservés.
+     * @return nombre d'utilisateurs stockés.
+     */
+    public int slotCount() {
+        return nextSlot.get();
+    }
+
+    /**
+     * Retourne la capacité d'un slot.
+     * @return nombre maximal de positions par utilisateur.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    private Segment segment(int index) {
+        Segment[] current = segments;
+        if (index < current.length) {
+            return current[index];
+        }
+        synchronized (this) {
+            current = segments;
+            if (index >= current.length) {
+                Segment[] grown = Arrays.copyOf(current, index + 1);
+                for (int i = current.length; i < grown.length; i++) {
+                    grown[i] = new Segment();
+                }
+                segments = grown;
+                current = grown;
+            }
+            return current[index];
+        }
+    }
+
+    /** Colonnes d'un groupe de slots, et séquences de début et de fin de chaque slot. */
+    private static final class Segment {
+
+        /** Colonnes de chaque slot, null tant que le slot ne retient aucune position. */
+        private final Columns[] columns = new Columns[SEGMENT_SLOTS];
+
+        /** Séquence de la plus ancienne position conservée, par slot. */
+        private final long[] firstSequences = new long[SEGMENT_SLOTS];
+
+        /** Séquence de la prochaine position ajoutée, par slot. */
+        private final long[] nextSequences = new long[SEGMENT_SLOTS];
+
+        private final StampedLock lock = new StampedLock();
+    }
+
+    /**
+     * Colonnes circulaires d'un slot. Les trois tableaux ont la même longueur et sont remplacés ensemble
+     * lorsqu'ils grandissent : une lecture optimiste qui lit une ancienne version reste dans ses bornes.
+     */
+    private static final class Columns {
+
+        private final double[] latitudes;
+
+        private final double[] longitudes;
+
+        private final long[] times;
+
+        private Columns(int length) {
+            latitudes = new double[length];
+            longitudes = new double[length];
+            times = new long[length];
+        }
+
+        private int length() {
+            return times.length;
+        }
+
+        private int index(long sequence) {
+            return (int) (sequence % times.length);
+        }
+
+        /** Copie les positions de first à next - 1 dans des colonnes plus longues. */
+        private Columns grow(int length, long first, long next) {
+            Columns grown = new Columns(length);
+            for (long sequence = first; sequence < next; sequence++) {
+                int from = index(sequence);
+                int to = grown.index(sequence);
+                grown.latitudes[to] = latitudes[from];
+                grown.longitudes[to] = longitudes[from];
+                grown.times[to] = times[from];
+            }
+            return grown;
+        }
+    }
+
+    /** Vue d'un slot sous forme d'historique. */
+    private final class SlotHistory implements LocationHistory {
+
+        private final UUID userId;
+
+        private final Segment segment;
+
+        private final int slot;
+
+        /** Nombre maximal de positions retenues, au plus la capacité du slot. */
+        private volatile int maxLocations = capacity;
+
+        private SlotHistory(UUID userId, Segment segment, int slot) {
+            this.userId = userId;
+            this.segment = segment;
+            this.slot = slot;
+        }
+
+        @Override
+        public void append(VisitedLocation visitedLocation) {
+            long stamp = segment.lock.writeLock();
+            try {
+                long first = segment.firstSequences[slot];
+                long sequence = segment.nextSequences[slot];
+                Columns columns = segment.columns[slot];
+                if (columns == null) {
+                    columns = new Columns(Math.min(INITIAL_SLOT_LENGTH, capacity));
+                    segment.columns[slot] = columns;
+                } else if (sequence - first >= columns.length() && columns.length() < maxLocations) {
+                    columns = columns.grow(Math.min(columns.length() * 2, capacity), first, sequence);
+                    segment.columns[slot] = columns;
+                }
+                int i = columns.index(sequence);
+                columns.latitudes[i] = visitedLocation.location.latitude;
+                columns.longitudes[i] = visitedLocation.location.longitude;
+                columns.times[i] = visitedLocation.timeVisited.getTime();
+                segment.nextSequences[slot] = sequence + 1;
+                evict(columns, maxLocations, columns.times[i]);
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+
+        /** Évince les positions en excès en nombre ou en ancienneté ; appelé sous verrou d'écriture. */
+        private void evict(Columns columns, int limit, long newestMillis) {
+            long next = segment.nextSequences[slot];
+            long first = Math.max(segment.firstSequences[slot], next - limit);
+            if (maxAgeMillis > 0) {
+                long cutoff = newestMillis - maxAgeMillis;
+                while (first < next - 1 && columns.times[columns.index(first)] < cutoff) {
+                    first++;
+                }
+            }
+            segment.firstSequences[slot] = first;
+        }
+
+        @Override
+        public VisitedLocation last() {
+            VisitedLocation[] last = new VisitedLocation[1];
+            visitLast((sequence, latitude, longitude, timeMillis) ->
+                    last[0] = new VisitedLocation(userId, new Location(latitude, longitude), new Date(timeMillis)));
+            return last[0];
+        }
+
+        @Override
+        public Location lastLocation() {
+            Location[] last = new Location[1];
+            visitLast((sequence, latitude, longitude, timeMillis) -> last[0] = new Location(latitude, longitude));
+            return last[0];
+        }
+
+        @Override
+        public boolean visitLast(LocationVisitor visitor) {
+            long stamp = segment.lock.tryOptimisticRead();
+            long next = segment.nextSequences[slot];
+            long first = segment.firstSequences[slot];
+            Columns columns = segment.columns[slot];
+            double latitude = 0;
+            double longitude = 0;
+            long time = 0;
+            if (columns != null) {
+                int i = columns.index(Math.max(0, next - 1));
+                latitude = columns.latitudes[i];
+                longitude = columns.longitudes[i];
+                time = columns.times[i];
+            }
+            if (!segment.lock.validate(stamp)) {
+                stamp = segment.lock.readLock();
+                try {
+                    next = segment.nextSequences[slot];
+                    first = segment.firstSequences[slot];
+                    columns = segment.columns[slot];
+                    if (columns != null) {
+                        int i = columns.index(Math.max(0, next - 1));
+                        latitude = columns.latitudes[i];
+                        longitude = columns.longitudes[i];
+                        time = columns.times[i];
+                    }
+                } finally {
+                    segment.lock.unlockRead(stamp);
+                }
+            }
+            if (next > first) {
+                visitor.visit(next - 1, latitude, longitude, time);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            long stamp = segment.lock.readLock();
+            try {
+                return (int) (segment.nextSequences[slot] - segment.firstSequences[slot]);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public long nextSequence() {
+            long stamp = segment.lock.readLock();
+            try {
+                return segment.nextSequences[slot];
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public Snapshot since(long sequence) {
+            long stamp = segment.lock.readLock();
+            try {
+                long next = segment.nextSequences[slot];
+                long from = Math.max(sequence, segment.firstSequences[slot]);
+                int count = (int) Math.max(0, next - from);
+                Columns columns = segment.columns[slot];
+                VisitedLocation[] copy = new VisitedLocation[count];
+                for (int k = 0; k < count; k++) {
+                    int i = columns.index(from + k);
+                    copy[k] = new VisitedLocation(userId,
+                            new Location(columns.latitudes[i], columns.longitudes[i]), new Date(columns.times[i]));
+                }
+                return new Snapshot(next - count, Collections.unmodifiableList(Arrays.asList(copy)));
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Parcourt les colonnes sans allocation ni verrou pendant l'appel du visiteur :
+         * chaque position est lue de façon optimiste, puis relue sous verrou si une écriture est intervenue.
+         * Les positions évincées pendant le parcours sont ignorées.
+         */
+        @Override
+        public long scan(long sequence, LocationVisitor visitor) {
+            long end = nextSequence();
+            for (long current = sequence; current < end; current++) {
+                long stamp = segment.lock.tryOptimisticRead();
+                long first = segment.firstSequences[slot];
+                Columns columns = segment.columns[slot];
+                double latitude = 0;
+                double longitude = 0;
+                long time = 0;
+                if (columns != null) {
+                    int i = columns.index(current);
+                    latitude = columns.latitudes[i];
+                    longitude = columns.longitudes[i];
+                    time = columns.times[i];
+                }
+                if (!segment.lock.validate(stamp)) {
+                    stamp = segment.lock.readLock();
+                    try {
+                        first = segment.firstSequences[slot];
+                        columns = segment.columns[slot];
+                        if (columns != null) {
+                            int i = columns.index(current);
+                            latitude = columns.latitudes[i];
+                            longitude = columns.longitudes[i];
+                            time = columns.times[i];
+                        }
+                    } finally {
+                        segment.lock.unlockRead(stamp);
+                    }
+                }
+                if (columns != null && current >= first) {
+                    visitor.visit(current, latitude, longitude, time);
+                }
+            }
+            return end;
+        }
+
+        /** La rétention en nombre est bornée par la capacité du slot ; l'ancienneté est celle du stockage. */
+        @Override
+        public void retain(int maxLocations, Duration maxAge) {
+            if (maxLocations < 1) {
+                throw new IllegalArgumentException("maxLocations must be positive: " + maxLocations);
+            }
+            long stamp = segment.lock.writeLock();
+            try {
+                this.maxLocations = Math.min(maxLocations, capacity);
+                long next = segment.nextSequences[slot];
+                Columns columns = segment.columns[slot];
+                if (next > segment.firstSequences[slot]) {
+                    evict(columns, this.maxLocations, columns.times[columns.index(next - 1)]);
+                }
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void clear() {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.firstSequences[slot] = segment.nextSequences[slot];
+                segment.columns[slot] = null;
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+}
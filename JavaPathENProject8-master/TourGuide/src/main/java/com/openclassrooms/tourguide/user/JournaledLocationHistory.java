@@ -0,0 +1,85 @@
+/**
+ * Historique qui transmet chaque position ajoutée à un journal (par exemple le stockage persistant)
+ * avant de la confier à l'historique en mémoire qu'il enveloppe. Les lectures sont déléguées telles quelles.
+ * Vider ou réduire l'historique ne concerne que la mémoire : le journal est en ajout seul.
+ */
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class JournaledLocationHistory implements LocationHistory {
+
+    private final LocationHistory delegate;
+
+    private final Consumer<VisitedLocation> journal;
+
+    /**
+     * Constructeur de l'historique journalisé.
+     * @param delegate historique en mémoire.
+     * @param journal destination des positions ajoutées ; une exception empêche l'ajout en mémoire.
+     */
+    public JournaledLocationHistory(LocationHistory delegate, Consumer<VisitedLocation> journal) {
+        this.delegate = delegate;
+        this.journal = journal;
+    }
+
+    @Override
+    public void append(VisitedLocation visitedLocation) {
+        journal.accept(visitedLocation);
+        delegate.append(visitedLocation);
+    }
+
+    @Override
+    public VisitedLocation last() {
+        return delegate.last();
+    }
+
+    @Override
+    public Location lastLocation() {
+        return delegate.lastLocation();
+    }
+
+    @Override
+    public boolean visitLast(LocationVisitor visitor) {
+        return delegate.visitLast(visitor);
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+
+    @Override
+    public long nextSequence() {
+        return delegate.nextSequence();
+    }
+
+    @Override
+    public Snapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public Snapshot since(long sequence) {
+        return delegate.since(sequence);
+    }
+
+    @Override
+    public long scan(long sequence, LocationVisitor visitor) {
+        return delegate.scan(sequence, visitor);
+    }
+
+    @Override
+    public void retain(int maxLocations, Duration maxAge) {
+        delegate.retain(maxLocations, maxAge);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Fonction de parcours de la dernière position connue des utilisateurs, en coordonnées primitives.
+ */
+package com.openclassrooms.tourguide.user;
+
+import java.util.UUID;
+
+@FunctionalInterface
+public interface LatestLocationVisitor {
+
+    /**
+     * Reçoit la dernière position d'un utilisateur.
+     * @param userId identifiant de l'utilisateur.
+     * @param latitude latitude en degrés.
+     * @param longitude longitude en degrés.
+     * @param timeMillis date de visite en millisecondes.
+     */
+    void visit(UUID userId, double latitude, double longitude, long timeMillis);
+}
@@ -0,0 +1,125 @@
+/**
+ * Historique borné des positions visitées d'un utilisateur.
+ * Chaque position reçoit un numéro de séquence croissant, qui reste valide après éviction ; la rétention
+ * est limitée en nombre et, optionnellement, en ancienneté par rapport à la position la plus récente.
+ * Les implémentations conservent soit des objets {@link VisitedLocation}, soit des colonnes primitives.
+ */
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.util.List;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public interface LocationHistory {
+
+    /** Nombre maximal de positions conservées par défaut. */
+    int DEFAULT_MAX_LOCATIONS = 1000;
+
+    /**
+     * Ajoute une position, en évinçant la plus ancienne si l'historique est plein
+     * puis celles qui dépassent l'ancienneté maximale.
+     * @param visitedLocation position visitée.
+     */
+    void append(VisitedLocation visitedLocation);
+
+    /**
+     * Retourne la dernière position ajoutée.
+     * @return dernière position, ou null si l'historique est vide.
+     */
+    VisitedLocation last();
+
+    /**
+     * Retourne les coordonnées de la dernière position, sans identifiant ni date.
+     * @return coordonnées, ou null si l'historique est vide.
+     */
+    Location lastLocation();
+
+    /**
+     * Transmet la dernière position à un visiteur, sans créer de {@link VisitedLocation}.
+     * @param visitor fonction appelée une fois si l'historique n'est pas vide.
+     * @return true si une position a été transmise.
+     */
+    boolean visitLast(LocationVisitor visitor);
+
+    /**
+     * Retourne le nombre de positions conservées.
+     * @return taille de l'historique.
+     */
+    int size();
+
+    /**
+     * Retourne le numéro de séquence de la prochaine position ajoutée.
+     * @return séquence de fin (exclue).
+     */
+    long nextSequence();
+
+    /**
+     * Retourne un instantané cohérent de tout l'historique conservé.
+     * @return positions de la plus ancienne à la plus récente.
+     */
+    default Snapshot snapshot() {
+        return since(0);
+    }
+
+    /**
+     * Retourne un instantané cohérent des positions dont le numéro de séquence est au moins celui donné.
+     * Seules ces positions sont copiées.
+     * @param sequence premier numéro de séquence souhaité.
+     * @return instantané, qui commence plus loin si les positions demandées ont été évincées.
+     */
+    Snapshot since(long sequence);
+
+    /**
+     * Parcourt les coordonnées des positions à partir d'une séquence, sans créer de {@link VisitedLocation}.
+     * @param sequence premier numéro de séquence souhaité.
+     * @param visitor fonction appelée pour chaque position, de la plus ancienne à la plus récente.
+     * @return séquence qui suit la dernière position parcourue.
+     */
+    long scan(long sequence, LocationVisitor visitor);
+
+    /**
+     * Modifie la rétention et évince immédiatement les positions en excès.
+     * @param maxLocations nombre maximal de positions conservées.
+     * @param maxAge ancienneté maximale, null pour aucune limite.
+     */
+    void retain(int maxLocations, Duration maxAge);
+
+    /**
+     * Vide l'historique. La numérotation des séquences continue.
+     */
+    void clear();
+
+    /**
+     * Fonction de parcours des coordonnées primitives d'un historique.
+     */
+    @FunctionalInterface
+    interface LocationVisitor {
+
+        /**
+         * Reçoit une position.
+         * @param sequence numéro de séquence.
+         * @param latitude latitude en degrés.
+         * @param longitude longitude en degrés.
+         * @param timeMillis date de visite en millisecondes.
+         */
+        void visit(long sequence, double latitude, double longitude, long timeMillis);
+    }
+
+    /**
+     * Instantané immuable d'une partie de l'historique.
+     * @param firstSequence numéro de séquence de la première position.
+     * @param locations positions de la plus ancienne à la plus récente.
+     */
+    record Snapshot(long firstSequence, List<VisitedLocation> locations) {
+
+        /**
+         * Retourne le numéro de séquence qui suit la dernière position de l'instantané.
+         * @return séquence de fin (exclue).
+         */
+        public long endSequence() {
+            return firstSequence + locations.size();
+        }
+    }
+}
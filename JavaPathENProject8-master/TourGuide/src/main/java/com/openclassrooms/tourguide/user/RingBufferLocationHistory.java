@@ -0,0 +1,194 @@
+/**
+ * Historique borné des positions visitées d'un utilisateur, sous forme d'objets {@link VisitedLocation}.
+ * Les positions sont rangées dans un tampon circulaire : l'ajout est en O(1) sans recopie de l'historique
+ * (le tampon ne grandit que jusqu'à la limite de rétention), et les plus anciennes positions sont évincées
+ * au-delà d'un nombre maximal ou d'une ancienneté maximale.
+ */
+package com.openclassrooms.tourguide.user;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class RingBufferLocationHistory implements LocationHistory {
+
+    /** Capacité initiale du tampon, doublée au besoin jusqu'à la limite de rétention. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    private static final VisitedLocation[] EMPTY = new VisitedLocation[0];
+
+    /** Tampon circulaire ; la plus ancienne position est à l'indice head. */
+    private VisitedLocation[] ring = EMPTY;
+
+    private int head;
+
+    private int size;
+
+    /** Numéro de séquence de la prochaine position ajoutée. */
+    private long nextSequence;
+
+    private int maxLocations;
+
+    /** Ancienneté maximale en millisecondes, 0 si illimitée. */
+    private long maxAgeMillis;
+
+    /** Dernière position ajoutée, lisible sans verrou. */
+    private volatile VisitedLocation last;
+
+    /**
+     * Constructeur avec la rétention par défaut.
+     */
+    public RingBufferLocationHistory() {
+        this(DEFAULT_MAX_LOCATIONS, null);
+    }
+
+    /**
+     * Constructeur de l'historique.
+     * @param maxLocations nombre maximal de positions conservées.
+     * @param maxAge ancienneté maximale par rapport à la position la plus récente, null pour aucune limite.
+     */
+    public RingBufferLocationHistory(int maxLocations, Duration maxAge) {
+        setLimits(maxLocations, maxAge);
+    }
+
+    @Override
+    public synchronized void retain(int maxLocations, Duration maxAge) {
+        setLimits(maxLocations, maxAge);
+        while (size > maxLocations) {
+            evictOldest();
+        }
+        if (last != null) {
+            evictOlderThan(last.timeVisited.getTime());
+        }
+        if (ring.length > maxLocations) {
+            resize(maxLocations);
+        }
+    }
+
+    private void setLimits(int maxLocations, Duration maxAge) {
+        if (maxLocations < 1) {
+            throw new IllegalArgumentException("maxLocations must be positive: " + maxLocations);
+        }
+        this.maxLocations = maxLocations;
+        this.maxAgeMillis = maxAge == null || maxAge.isNegative() ? 0 : maxAge.toMillis();
+    }
+
+    @Override
+    public synchronized void append(VisitedLocation visitedLocation) {
+        if (size == maxLocations) {
+            evictOldest();
+        } else if (size == ring.length) {
+            resize(Math.min(maxLocations, Math.max(INITIAL_CAPACITY, ring.length * 2)));
+        }
+        ring[index(size)] = visitedLocation;
+        size++;
+        nextSequence++;
+        last = visitedLocation;
+        evictOlderThan(visitedLocation.timeVisited.getTime());
+    }
+
+    /** Lecture sans verrou de la dernière position ajoutée. */
+    @Override
+    public VisitedLocation last() {
+        return last;
+    }
+
+    /** La position et sa séquence sont lues ensemble sous verrou ; le visiteur est appelé hors verrou. */
+    @Override
+    public boolean visitLast(LocationVisitor visitor) {
+        VisitedLocation visitedLocation;
+        long sequence;
+        synchronized (this) {
+            visitedLocation = last;
+            sequence = nextSequence - 1;
+        }
+        if (visitedLocation == null) {
+            return false;
+        }
+        visitor.visit(sequence, visitedLocation.location.latitude, visitedLocation.location.longitude,
+                visitedLocation.timeVisited.getTime());
+        return true;
+    }
+
+    @Override
+    public Location lastLocation() {
+        VisitedLocation visitedLocation = last;
+        return visitedLocation == null ? null : visitedLocation.location;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized long nextSequence() {
+        return nextSequence;
+    }
+
+    @Override
+    public synchronized Snapshot since(long sequence) {
+        long first = nextSequence - size;
+        long from = Math.max(sequence, first);
+        int count = (int) Math.max(0, nextSequence - from);
+        VisitedLocation[] copy = new VisitedLocation[count];
+        int offset = (int) (from - first);
+        for (int i = 0; i < count; i++) {
+            copy[i] = ring[index(offset + i)];
+        }
+        return new Snapshot(nextSequence - count, Collections.unmodifiableList(Arrays.asList(copy)));
+    }
+
+    @Override
+    public long scan(long sequence, LocationVisitor visitor) {
+        Snapshot snapshot = since(sequence);
+        long current = snapshot.firstSequence();
+        for (VisitedLocation visitedLocation : snapshot.locations()) {
+            visitor.visit(current++, visitedLocation.location.latitude, visitedLocation.location.longitude,
+                    visitedLocation.timeVisited.getTime());
+        }
+        return snapshot.endSequence();
+    }
+
+    @Override
+    public synchronized void clear() {
+        ring = EMPTY;
+        head = 0;
+        size = 0;
+        last = null;
+    }
+
+    private int index(int offset) {
+        int i = head + offset;
+        return i < ring.length ? i : i - ring.length;
+    }
+
+    private void evictOldest() {
+        ring[head] = null;
+        head = index(1);
+        size--;
+    }
+
+    /** Évince les plus anciennes positions au-delà de l'ancienneté maximale ; la plus récente est conservée. */
+    private void evictOlderThan(long newestMillis) {
+        if (maxAgeMillis == 0) {
+            return;
+        }
+        long cutoff = newestMillis - maxAgeMillis;
+        while (size > 1 && ring[head].timeVisited.getTime() < cutoff) {
+            evictOldest();
+        }
+    }
+
+    private void resize(int capacity) {
+        VisitedLocation[] resized = new VisitedLocation[capacity];
+        for (int i = 0; i < size; i++) {
+            resized[i] = ring[index(i)];
+        }
+        ring = resized;
+        head = 0;
+    }
+}
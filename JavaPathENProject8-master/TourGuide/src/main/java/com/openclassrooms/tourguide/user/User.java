@@ -12,6 +12,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 public class User {
 
@@ -30,8 +31,8 @@ public class User {
     /** Horodatage de la dernière position connue. */
     private Date latestLocationTimestamp;
 
-    /** Liste des lieux visités par l'utilisateur. */
-    private List<VisitedLocation> visitedLocations = new CopyOnWriteArrayList<>();
+    /** Historique borné des lieux visités par l'utilisateur. */
+    private volatile LocationHistory visitedLocations = new RingBufferLocationHistory();
 
     /** Liste des récompenses obtenues par l'utilisateur. */
     private List<UserReward> userRewards = new CopyOnWriteArrayList<>();
@@ -42,6 +43,15 @@ public class User {
     /** Offres de voyage proposées à l'utilisateur. */
     private List<Provider> tripDeals = new CopyOnWriteArrayList<>();
 
+    /** Numéro de séquence de la première position de l'historique restant à évaluer pour les récompenses. */
+    private long rewardWatermark;
+
+    /** Version de la configuration de proximité pour laquelle le watermark est valide. */
+    private long rewardWatermarkVersion;
+
+    /** Destination des récompenses ajoutées (par exemple le stockage persistant), null si aucune. */
+    private volatile Consumer<UserReward> rewardJournal;
+
     /**
      * Constructeur de la classe User.
      * @param userId Identifiant unique
@@ -125,22 +135,80 @@ public class User {
      * @param visitedLocation Emplacement visité
      */
     public void addToVisitedLocations(VisitedLocation visitedLocation) {
-        visitedLocations.add(visitedLocation);
+        visitedLocations.append(visitedLocation);
     }
 
     /**
-     * Retourne la liste des lieux visités.
-     * @return liste de VisitedLocation
+     * Retourne un instantané des lieux visités conservés.
+     * @return liste non modifiable de VisitedLocation, de la plus ancienne à la plus récente
      */
     public List<VisitedLocation> getVisitedLocations() {
+        return visitedLocations.snapshot().locations();
+    }
+
+    /**
+     * Retourne l'historique des lieux visités.
+     * @return historique borné
+     */
+    public LocationHistory getVisitedLocationHistory() {
         return visitedLocations;
     }
 
+    /**
+     * Remplace le stockage de l'historique (par exemple par un slot du stockage en colonnes),
+     * en y recopiant les positions déjà connues. À appeler avant que l'utilisateur ne soit suivi.
+     * @param history nouvel historique
+     */
+    public synchronized void setVisitedLocationHistory(LocationHistory history) {
+        visitedLocations.snapshot().locations().forEach(history::append);
+        visitedLocations = history;
+    }
+
+    /**
+     * Transmet désormais chaque position ajoutée à un journal, sans recopier les positions déjà connues.
+     * @param journal destination des positions ajoutées
+     */
+    public synchronized void journalVisitedLocations(Consumer<VisitedLocation> journal) {
+        visitedLocations = new JournaledLocationHistory(visitedLocations, journal);
+    }
+
     /**
      * Supprime l'historique des positions visitées.
      */
-    public void clearVisitedLocations() {
+    public synchronized void clearVisitedLocations() {
         visitedLocations.clear();
+        rewardWatermark = 0;
+    }
+
+    /**
+     * Retourne la séquence de la première position restant à évaluer pour les récompenses.
+     * Un changement de version (par exemple du rayon de proximité) remet le watermark à zéro.
+     * @param version version courante de la configuration de proximité
+     * @return numéro de séquence dans l'historique
+     */
+    public synchronized long getRewardWatermark(long version) {
+        return version == rewardWatermarkVersion ? rewardWatermark : 0;
+    }
+
+    /**
+     * Avance le watermark après l'évaluation des positions jusqu'à la séquence donnée (exclue).
+     * @param version version de la configuration de proximité utilisée pour l'évaluation
+     * @param processed séquence qui suit la dernière position évaluée
+     */
+    public synchronized void advanceRewardWatermark(long version, long processed) {
+        if (version != rewardWatermarkVersion) {
+            rewardWatermarkVersion = version;
+            rewardWatermark = processed;
+        } else {
+            rewardWatermark = Math.max(rewardWatermark, processed);
+        }
+    }
+
+    /**
+     * Remet le watermark à zéro pour forcer une réévaluation complète de l'historique.
+     */
+    public synchronized void resetRewardWatermark() {
+        rewardWatermark = 0;
     }
 
     /**
@@ -153,9 +221,21 @@ public class User {
 
         if (!alreadyExists) {
             userRewards.add(userReward);
+            Consumer<UserReward> journal = rewardJournal;
+            if (journal != null) {
+                journal.accept(userReward);
+            }
         }
     }
 
+    /**
+     * Transmet désormais chaque nouvelle récompense à un journal.
+     * @param rewardJournal destination des récompenses ajoutées, null pour aucune
+     */
+    public void setRewardJournal(Consumer<UserReward> rewardJournal) {
+        this.rewardJournal = rewardJournal;
+    }
+
     /**
      * Retourne la liste des récompenses de l'utilisateur.
      * @return liste de UserReward
@@ -181,11 +261,11 @@ public class User {
     }
 
     /**
-     * Récupère le dernier lieu visité.
-     * @return VisitedLocation le plus récent
+     * Récupère le dernier lieu visité, sans copie de l'historique.
+     * @return VisitedLocation le plus récent, ou null si l'historique est vide
      */
     public VisitedLocation getLastVisitedLocation() {
-        return visitedLocations.get(visitedLocations.size() - 1);
+        return visitedLocations.last();
     }
 
     /**
@@ -0,0 +1,77 @@
+/**
+ * Registre concurrent des utilisateurs.
+ * Les utilisateurs sont indexés par nom et par identifiant ; ils sont parcourus sans copie avec une cohérence
+ * faible : un ajout pendant un parcours est sans danger et sera vu au plus tard au parcours suivant.
+ */
+package com.openclassrooms.tourguide.user;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class UserRegistry {
+
+    /** Utilisateurs indexés par nom. */
+    private final ConcurrentHashMap<String, User> usersByName = new ConcurrentHashMap<>();
+
+    /** Utilisateurs indexés par identifiant. */
+    private final ConcurrentHashMap<UUID, User> usersById = new ConcurrentHashMap<>();
+
+    /**
+     * Ajoute un utilisateur si aucun utilisateur de même nom n'est enregistré.
+     * @param user utilisateur à ajouter.
+     * @return true si l'utilisateur a été ajouté.
+     */
+    public boolean add(User user) {
+        if (usersByName.putIfAbsent(user.getUserName(), user) != null) {
+            return false;
+        }
+        usersById.put(user.getUserId(), user);
+        return true;
+    }
+
+    /**
+     * Recherche un utilisateur par nom.
+     * @param userName nom d'utilisateur.
+     * @return utilisateur, ou null s'il est inconnu.
+     */
+    public User getByName(String userName) {
+        return usersByName.get(userName);
+    }
+
+    /**
+     * Recherche un utilisateur par identifiant.
+     * @param userId identifiant de l'utilisateur.
+     * @return utilisateur, ou null s'il est inconnu.
+     */
+    public User getById(UUID userId) {
+        return usersById.get(userId);
+    }
+
+    /**
+     * Retourne le nombre d'utilisateurs enregistrés.
+     * @return nombre d'utilisateurs.
+     */
+    public int size() {
+        return usersByName.size();
+    }
+
+    /**
+     * Retourne une vue non modifiable et faiblement cohérente des utilisateurs, sans copie.
+     * @return utilisateurs enregistrés.
+     */
+    public Collection<User> users() {
+        return Collections.unmodifiableCollection(usersByName.values());
+    }
+
+    /**
+     * Retourne une copie des utilisateurs enregistrés à cet instant.
+     * @return liste indépendante du registre.
+     */
+    public List<User> snapshot() {
+        return new ArrayList<>(usersByName.values());
+    }
+}
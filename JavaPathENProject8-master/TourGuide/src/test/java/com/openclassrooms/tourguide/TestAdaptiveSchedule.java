@@ -0,0 +1,119 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.tracker.AdaptiveSchedule;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestAdaptiveSchedule {
+
+	private static final long MIN = TimeUnit.MINUTES.toNanos(1);
+
+	private static final long MAX = TimeUnit.MINUTES.toNanos(30);
+
+	@Test
+	public void intervalFollowsMovement() {
+		AdaptiveSchedule schedule = new AdaptiveSchedule(new TourGuideProperties.Tracker());
+		long fiveMinutes = TimeUnit.MINUTES.toNanos(5);
+
+		assertEquals(2 * fiveMinutes, schedule.nextInterval(fiveMinutes, 0.01, false));
+		assertEquals(fiveMinutes / 2, schedule.nextInterval(fiveMinutes, 2, false));
+		assertEquals(fiveMinutes / 2, schedule.nextInterval(fiveMinutes, Double.NaN, false));
+		assertEquals(MIN, schedule.nextInterval(fiveMinutes, 0, true));
+
+		long interval = fiveMinutes;
+		for (int i = 0; i < 10; i++) {
+			interval = schedule.nextInterval(interval, 0, false);
+		}
+		assertEquals(MAX, interval);
+		for (int i = 0; i < 10; i++) {
+			interval = schedule.nextInterval(interval, 5, false);
+		}
+		assertEquals(MIN, interval);
+	}
+
+	private TourGuideProperties adaptiveProperties(double gpsCallsPerSecond) {
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setAdaptive(true);
+		properties.getTracker().setInitialDelay(Duration.ZERO);
+		properties.getTracker().setPollingInterval(Duration.ofMillis(200));
+		properties.getTracker().setMinInterval(Duration.ofMillis(50));
+		properties.getTracker().setMaxInterval(Duration.ofSeconds(2));
+		properties.getTracker().setAttractionRadiusMiles(0);
+		properties.getTracker().setGpsCallsPerSecond(gpsCallsPerSecond);
+		return properties;
+	}
+
+	@Test
+	public void movingUsersAreTrackedMoreOften() throws InterruptedException {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(2);
+
+		Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, adaptiveProperties(0)) {
+			@Override
+			public VisitedLocation trackUserLocation(User user) {
+				int call = calls.computeIfAbsent(user.getUserName(), name -> new AtomicInteger()).incrementAndGet();
+				// internalUser0 reste sur place, internalUser1 parcourt un degré de longitude à chaque suivi
+				double longitude = user.getUserName().equals("internalUser0") ? 0 : call;
+				VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(0, longitude), new Date());
+				user.addToVisitedLocations(visitedLocation);
+				return visitedLocation;
+			}
+		};
+
+		TimeUnit.SECONDS.sleep(3);
+		tourGuideService.tracker.stopTracking();
+
+		int stationary = calls.get("internalUser0").get();
+		int moving = calls.get("internalUser1").get();
+		assertTrue(stationary <= 6, "stationary user tracked " + stationary + " times");
+		assertTrue(moving > 3 * stationary, "moving user tracked " + moving + " times, stationary " + stationary);
+	}
+
+	@Test
+	public void gpsBudgetCapsTrackingRate() throws InterruptedException {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(5);
+
+		AtomicInteger calls = new AtomicInteger();
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, adaptiveProperties(20)) {
+			@Override
+			public VisitedLocation trackUserLocation(User user) {
+				int call = calls.incrementAndGet();
+				VisitedLocation visitedLocation = new VisitedLocation(user.getUserId(), new Location(0, call), new Date());
+				user.addToVisitedLocations(visitedLocation);
+				return visitedLocation;
+			}
+		};
+
+		long start = System.nanoTime();
+		TimeUnit.SECONDS.sleep(2);
+		tourGuideService.tracker.stopTracking();
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+		// Sans budget, 5 utilisateurs en mouvement seraient suivis toutes les 50 ms, soit 200 appels
+		assertTrue(calls.get() <= 20 * elapsedSeconds + 2, calls.get() + " calls in " + elapsedSeconds + " s");
+		assertTrue(calls.get() >= 20, calls.get() + " calls in " + elapsedSeconds + " s");
+	}
+}
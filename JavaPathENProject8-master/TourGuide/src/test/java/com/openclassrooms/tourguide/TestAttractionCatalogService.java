@@ -0,0 +1,61 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.geo.AttractionCatalog;
+import com.openclassrooms.tourguide.service.AttractionCatalogService;
+
+public class TestAttractionCatalogService {
+
+	@Test
+	public void catalogueIsLoadedOnceAndShared() {
+		AtomicInteger loads = new AtomicInteger();
+		GpsUtil gpsUtil = new GpsUtil() {
+			@Override
+			public List<Attraction> getAttractions() {
+				loads.incrementAndGet();
+				return super.getAttractions();
+			}
+		};
+		AttractionCatalogService catalogService = new AttractionCatalogService(gpsUtil);
+
+		AttractionCatalog first = catalogService.getCatalog();
+		AttractionCatalog second = catalogService.getCatalog();
+		catalogService.shutdown();
+
+		assertSame(first, second);
+		assertEquals(1, loads.get());
+		assertEquals(gpsUtil.getAttractions().size(), first.size());
+		assertEquals(1, catalogService.getRefreshCount());
+	}
+
+	@Test
+	public void catalogueIsRefreshedInBackground() throws InterruptedException {
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getAttractions().setRefreshInterval(Duration.ofMillis(50));
+		AttractionCatalogService catalogService = new AttractionCatalogService(new GpsUtil(), properties);
+
+		AttractionCatalog first = catalogService.getCatalog();
+		Thread.sleep(300);
+		AttractionCatalog refreshed = catalogService.getCatalog();
+		catalogService.shutdown();
+
+		assertFalse(first == refreshed);
+		assertTrue(catalogService.getLastRefresh().isAfter(first.loadedAt()));
+		assertTrue(catalogService.getRefreshCount() > 1);
+		assertTrue(catalogService.getAge().compareTo(Duration.ofMillis(300)) < 0);
+		assertEquals(first.attractions().get(0).attractionId, refreshed.attractions().get(0).attractionId);
+	}
+}
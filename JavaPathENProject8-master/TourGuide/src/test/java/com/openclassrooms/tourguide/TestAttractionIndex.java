@@ -0,0 +1,79 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.service.RewardsService;
+
+public class TestAttractionIndex {
+
+	private final RewardsService rewardsService = new RewardsService(new GpsUtil(), new RewardCentral());
+
+	private List<Attraction> randomAttractions(Random random, int count) {
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			attractions.add(new Attraction("a" + i, "city", "state",
+					-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360));
+		}
+		return attractions;
+	}
+
+	@Test
+	public void nearestMatchesFullSort() {
+		Random random = new Random(42);
+		List<Attraction> attractions = randomAttractions(random, 2000);
+		AttractionIndex index = AttractionIndex.of(attractions);
+
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+			List<Attraction> expected = attractions.stream()
+					.sorted(Comparator.comparingDouble(a -> rewardsService.getDistance(location, a)))
+					.limit(5)
+					.collect(Collectors.toList());
+
+			assertEquals(expected, index.nearest(location, 5));
+		}
+	}
+
+	@Test
+	public void withinRadiusMatchesFullScan() {
+		Random random = new Random(7);
+		List<Attraction> attractions = randomAttractions(random, 2000);
+		AttractionIndex index = AttractionIndex.of(attractions);
+
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+			double radius = random.nextDouble() * 1500;
+			List<Attraction> expected = attractions.stream()
+					.filter(a -> rewardsService.getDistance(location, a) <= radius)
+					.collect(Collectors.toList());
+
+			List<Attraction> found = index.withinRadius(location, radius);
+			assertEquals(expected.size(), found.size());
+			assertTrue(found.containsAll(expected));
+		}
+	}
+
+	@Test
+	public void nearestOnGpsUtilCatalogue() {
+		GpsUtil gpsUtil = new GpsUtil();
+		AttractionIndex index = AttractionIndex.of(gpsUtil.getAttractions());
+		Attraction attraction = index.attractions().get(0);
+
+		assertEquals(attraction, index.nearest(attraction, 1).get(0));
+		assertEquals(index.size(), index.nearest(attraction, Integer.MAX_VALUE).size());
+	}
+}
@@ -0,0 +1,123 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.dto.UserOverviewDTO;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestBulkUserOverview {
+
+	/** GpsUtil qui mesure la concurrence des appels et échoue pour un utilisateur donné. */
+	private static class CountingGpsUtil extends GpsUtil {
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicInteger maxInFlight = new AtomicInteger();
+
+		private volatile UUID failingUser;
+
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(20);
+				if (userId.equals(failingUser)) {
+					throw new IllegalStateException("GPS unavailable");
+				}
+				return super.getUserLocation(userId);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	private TourGuideService newService(GpsUtil gpsUtil, int bulkParallelism) {
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 1;
+			}
+		});
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		properties.getExecution().setBulkParallelism(bulkParallelism);
+		return new TourGuideService(gpsUtil, rewardsService, properties);
+	}
+
+	private List<String> addUsers(TourGuideService tourGuideService, int count) {
+		List<String> userNames = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			tourGuideService.addUser(user);
+			userNames.add(user.getUserName());
+		}
+		return userNames;
+	}
+
+	@Test
+	public void fanOutIsBoundedAndCoversEveryUser() throws Exception {
+		CountingGpsUtil gpsUtil = new CountingGpsUtil();
+		TourGuideService tourGuideService = newService(gpsUtil, 4);
+		List<String> userNames = addUsers(tourGuideService, 40);
+
+		Map<String, UserOverviewDTO> results = new ConcurrentHashMap<>();
+		tourGuideService.getUserOverviews(userNames, overview -> results.put(overview.userName, overview))
+				.get(60, TimeUnit.SECONDS);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(40, results.size());
+		assertTrue(gpsUtil.maxInFlight.get() <= 4);
+		for (UserOverviewDTO overview : results.values()) {
+			assertNull(overview.error);
+			assertNotNull(overview.location);
+			assertEquals(5, overview.nearbyAttractions.size());
+		}
+	}
+
+	@Test
+	public void failuresProducePartialResults() throws Exception {
+		CountingGpsUtil gpsUtil = new CountingGpsUtil();
+		TourGuideService tourGuideService = newService(gpsUtil, 8);
+		List<String> userNames = addUsers(tourGuideService, 3);
+		gpsUtil.failingUser = tourGuideService.getUser("user1").getUserId();
+		userNames.add("nobody");
+
+		Map<String, UserOverviewDTO> results = new ConcurrentHashMap<>();
+		tourGuideService.getUserOverviews(userNames, overview -> results.put(overview.userName, overview))
+				.get(60, TimeUnit.SECONDS);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(4, results.size());
+		assertNull(results.get("user0").error);
+		assertEquals("IllegalStateException: GPS unavailable", results.get("user1").error);
+		assertNotNull(results.get("user1").rewards);
+		assertNull(results.get("user1").nearbyAttractions);
+		assertEquals("Unknown user", results.get("nobody").error);
+	}
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import com.openclassrooms.tourguide.geo.AttractionIndex;
+import com.openclassrooms.tourguide.geo.ChordScan;
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.geo.GeoPoint;
+
+public class TestChordScan {
+
+	private List<Attraction> randomAttractions(Random random, int count) {
+		List<Attraction> attractions = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			attractions.add(new Attraction("a" + i, "city", "state",
+					-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360));
+		}
+		return attractions;
+	}
+
+	@Test
+	public void vectorModuleIsLoadedInTests() {
+		assertTrue(ChordScan.vector().isPresent());
+		assertTrue(ChordScan.preferred().name().startsWith("vector"));
+	}
+
+	@Test
+	public void vectorAndScalarScansAgree() {
+		Random random = new Random(42);
+		ChordScan vector = ChordScan.preferred();
+		// tailles choisies pour couvrir les boucles sans vecteur complet et avec reste
+		for (int size : new int[] { 0, 1, 3, 26, 33, 1000 }) {
+			DistanceKernel kernel = DistanceKernel.of(randomAttractions(random, size));
+			for (int i = 0; i < 50; i++) {
+				GeoPoint point = GeoPoint.of(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+				double[] scalar = new double[size];
+				double[] vectorized = new double[size];
+				kernel.chord2(point, ChordScan.scalar(), scalar);
+				kernel.chord2(point, vector, vectorized);
+
+				assertArrayEquals(scalar, vectorized);
+				for (int k = 0; k < size; k++) {
+					assertEquals(kernel.chord2(point, k), scalar[k], 1e-15);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void linearScansMatchTree() {
+		Random random = new Random(7);
+		List<Attraction> attractions = randomAttractions(random, 500);
+		AttractionIndex tree = AttractionIndex.of(attractions);
+		AttractionIndex scalar = AttractionIndex.of(attractions, AttractionIndex.Search.SCALAR_SCAN);
+		AttractionIndex vector = AttractionIndex.of(attractions, AttractionIndex.Search.VECTOR_SCAN);
+		assertEquals("scalar", scalar.scanImplementation());
+
+		for (int i = 0; i < 200; i++) {
+			Location location = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+			double radius = random.nextDouble() * 1500;
+
+			assertEquals(tree.nearest(location, 5), scalar.nearest(location, 5));
+			assertEquals(tree.nearest(location, 5), vector.nearest(location, 5));
+			assertEquals(tree.withinRadius(location, radius), scalar.withinRadius(location, radius));
+			assertEquals(tree.withinRadius(location, radius), vector.withinRadius(location, radius));
+		}
+	}
+}
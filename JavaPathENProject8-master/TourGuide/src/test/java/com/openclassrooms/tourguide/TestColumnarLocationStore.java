@@ -0,0 +1,149 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.ColumnarLocationStore;
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.RingBufferLocationHistory;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+public class TestColumnarLocationStore {
+
+	private VisitedLocation at(UUID userId, long millis) {
+		return new VisitedLocation(userId, new Location(millis, -millis), new Date(millis));
+	}
+
+	@Test
+	public void slotsKeepTheirOwnBoundedHistory() {
+		ColumnarLocationStore store = new ColumnarLocationStore(3, null);
+		List<LocationHistory> histories = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			histories.add(store.allocate(UUID.randomUUID()));
+		}
+		assertNull(histories.get(0).last());
+
+		for (int i = 0; i < histories.size(); i++) {
+			for (int k = 0; k < 5; k++) {
+				histories.get(i).append(at(UUID.randomUUID(), i * 10L + k));
+			}
+		}
+
+		for (int i = 0; i < histories.size(); i++) {
+			LocationHistory history = histories.get(i);
+			LocationHistory.Snapshot snapshot = history.snapshot();
+			assertEquals(3, history.size());
+			assertEquals(2, snapshot.firstSequence());
+			assertEquals(i * 10L + 2, snapshot.locations().get(0).timeVisited.getTime());
+			assertEquals(i * 10L + 4, history.last().timeVisited.getTime());
+			assertEquals(-(i * 10.0 + 4), history.lastLocation().longitude);
+
+			List<Long> scanned = new ArrayList<>();
+			long end = history.scan(3, (sequence, latitude, longitude, timeMillis) -> scanned.add(timeMillis));
+			assertEquals(5, end);
+			assertEquals(List.of(i * 10L + 3, i * 10L + 4), scanned);
+		}
+		assertEquals(600, store.slotCount());
+	}
+
+	@Test
+	public void columnsGrowWithRetainedLocations() {
+		ColumnarLocationStore store = new ColumnarLocationStore(50, null);
+		UUID userId = UUID.randomUUID();
+		LocationHistory history = store.allocate(userId);
+
+		// Les colonnes du slot doublent plusieurs fois avant d'atteindre la capacité, puis tournent
+		for (long k = 0; k < 120; k++) {
+			history.append(at(userId, k));
+			assertEquals(Math.min(k + 1, 50), history.size());
+			assertEquals(k, history.last().timeVisited.getTime());
+		}
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		assertEquals(70, snapshot.firstSequence());
+		for (int k = 0; k < 50; k++) {
+			assertEquals(70L + k, snapshot.locations().get(k).timeVisited.getTime());
+		}
+		List<Long> scanned = new ArrayList<>();
+		history.scan(110, (sequence, latitude, longitude, timeMillis) -> scanned.add((long) latitude));
+		assertEquals(List.of(110L, 111L, 112L, 113L, 114L, 115L, 116L, 117L, 118L, 119L), scanned);
+
+		history.retain(10, null);
+		assertEquals(10, history.size());
+		assertEquals(110, history.snapshot().locations().get(0).timeVisited.getTime());
+
+		history.clear();
+		history.append(at(userId, 200));
+		assertEquals(1, history.size());
+		assertEquals(-200, history.lastLocation().longitude);
+	}
+
+	@Test
+	public void locationsOlderThanMaxAgeAreEvicted() {
+		ColumnarLocationStore store = new ColumnarLocationStore(100, Duration.ofMillis(1000));
+		UUID userId = UUID.randomUUID();
+		LocationHistory history = store.allocate(userId);
+		history.append(at(userId, 0));
+		history.append(at(userId, 500));
+		history.append(at(userId, 1200));
+
+		assertEquals(2, history.size());
+		assertEquals(500, history.snapshot().locations().get(0).timeVisited.getTime());
+		assertEquals(userId, history.last().userId);
+
+		history.clear();
+		assertEquals(0, history.size());
+		assertNull(history.lastLocation());
+		assertEquals(3, history.nextSequence());
+	}
+
+	@Test
+	public void rewardsAreComputedFromColumns() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 7;
+			}
+		});
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getHistory().setColumnar(true);
+		properties.getHistory().setMaxLocations(10);
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, properties);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		Attraction attraction = rewardsService.getAttractionCatalog().attractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()));
+		tourGuideService.addUser(user);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+
+		assertFalse(user.getVisitedLocationHistory() instanceof RingBufferLocationHistory);
+		assertEquals(2, user.getVisitedLocations().size());
+		rewardsService.calculateRewards(user);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(attraction.attractionName, user.getUserRewards().get(0).attraction.attractionName);
+		assertEquals(attraction.latitude, tourGuideService.getNearbyAttractionsDetailed(user).get(0).attractionLatitude);
+	}
+}
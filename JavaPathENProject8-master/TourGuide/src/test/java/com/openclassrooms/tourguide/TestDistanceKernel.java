@@ -0,0 +1,118 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.geo.DistanceKernel;
+import com.openclassrooms.tourguide.geo.GeoPoint;
+
+import gpsUtil.location.Location;
+
+public class TestDistanceKernel {
+
+	/** Formule d'origine de RewardsService.getDistance, conservée comme référence. */
+	private static double referenceMiles(Location loc1, Location loc2) {
+		double lat1 = Math.toRadians(loc1.latitude);
+		double lon1 = Math.toRadians(loc1.longitude);
+		double lat2 = Math.toRadians(loc2.latitude);
+		double lon2 = Math.toRadians(loc2.longitude);
+		double angle = Math.acos(Math.sin(lat1) * Math.sin(lat2)
+				+ Math.cos(lat1) * Math.cos(lat2) * Math.cos(lon1 - lon2));
+		double nauticalMiles = 60 * Math.toDegrees(angle);
+		return 1.15077945 * nauticalMiles;
+	}
+
+	/** Position à une distance et un cap donnés d'une origine. */
+	private static Location destination(Location origin, double miles, double bearing) {
+		double d = miles / DistanceKernel.MILES_PER_RADIAN;
+		double lat1 = Math.toRadians(origin.latitude);
+		double lon1 = Math.toRadians(origin.longitude);
+		double lat2 = Math.asin(Math.sin(lat1) * Math.cos(d) + Math.cos(lat1) * Math.sin(d) * Math.cos(bearing));
+		double lon2 = lon1 + Math.atan2(Math.sin(bearing) * Math.sin(d) * Math.cos(lat1),
+				Math.cos(d) - Math.sin(lat1) * Math.sin(lat2));
+		double longitude = Math.toDegrees(lon2);
+		longitude = ((longitude + 540) % 360) - 180;
+		return new Location(Math.toDegrees(lat2), longitude);
+	}
+
+	@Test
+	public void exactDistanceMatchesCurrentFormula() {
+		Random random = new Random(1);
+		List<Location> points = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			points.add(new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360));
+		}
+		DistanceKernel kernel = DistanceKernel.of(points);
+
+		for (int n = 0; n < 1000; n++) {
+			Location location = new Location(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360);
+			GeoPoint point = GeoPoint.of(location);
+			for (int i = 0; i < points.size(); i++) {
+				double reference = referenceMiles(location, points.get(i));
+				assertEquals(reference, kernel.miles(point, i), 1e-9 * Math.max(1, reference));
+				assertEquals(reference, DistanceKernel.chord2ToMiles(kernel.chord2(point, i)), 1e-6 * Math.max(1, reference));
+			}
+		}
+	}
+
+	@Test
+	public void equirectangularErrorIsBoundedAtShortRange() {
+		Random random = new Random(2);
+		double maxError = 0;
+		for (int n = 0; n < 200_000; n++) {
+			Location origin = new Location(-68 + random.nextDouble() * 136, -180 + random.nextDouble() * 360);
+			Location target = destination(origin, 1 + random.nextDouble() * (2 * DistanceKernel.SHORT_RANGE_MILES - 1),
+					random.nextDouble() * 2 * Math.PI);
+			if (Math.abs(target.latitude) > 70) {
+				continue;
+			}
+			double reference = referenceMiles(origin, target);
+			double approximate = DistanceKernel.of(List.of(target)).equirectangularMiles(GeoPoint.of(origin), 0);
+			maxError = Math.max(maxError, Math.abs(approximate - reference) / reference);
+		}
+		assertTrue(maxError <= DistanceKernel.EQUIRECTANGULAR_TOLERANCE, "max relative error " + maxError);
+	}
+
+	@Test
+	public void proximityCheckAgreesWithCurrentFormula() {
+		Random random = new Random(3);
+		for (int n = 0; n < 200_000; n++) {
+			Location origin = new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360);
+			double threshold = 1 + random.nextInt(100);
+			// cibles concentrées autour du seuil, et quelques-unes lointaines
+			double miles = random.nextInt(10) == 0 ? random.nextDouble() * 3000 : threshold * (0.99 + random.nextDouble() * 0.02);
+			Location target = destination(origin, miles, random.nextDouble() * 2 * Math.PI);
+
+			boolean expected = referenceMiles(origin, target) <= threshold;
+			assertEquals(expected, DistanceKernel.of(List.of(target)).isWithin(GeoPoint.of(origin), 0, threshold));
+		}
+	}
+
+	@Test
+	public void chordOrderMatchesDistanceOrder() {
+		Random random = new Random(4);
+		List<Location> points = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			points.add(new Location(-85 + random.nextDouble() * 170, -180 + random.nextDouble() * 360));
+		}
+		DistanceKernel kernel = DistanceKernel.of(points);
+		Location location = new Location(48.85, 2.35);
+		GeoPoint point = GeoPoint.of(location);
+
+		for (int i = 0; i < points.size(); i++) {
+			for (int j = 0; j < points.size(); j++) {
+				double di = referenceMiles(location, points.get(i));
+				double dj = referenceMiles(location, points.get(j));
+				if (Math.abs(di - dj) > 1e-6) {
+					assertEquals(di < dj, kernel.chord2(point, i) < kernel.chord2(point, j));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Test de charge des endpoints REST, exécuté par le profil Maven {@code loadtest} ({@code mvn test -Ploadtest}).
+ * L'application est démarrée deux fois avec le profil Spring {@code loadtest} (16 threads Tomcat) :
+ * endpoints bloquants puis asynchrones, sous la même charge de clients concurrents sur {@code /getTripDeals}.
+ */
+@Tag("loadtest")
+public class TestEndpointLoad {
+
+	private static final int CLIENTS = 200;
+
+	private static final Duration WARMUP = Duration.ofSeconds(3);
+
+	private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+	@Test
+	public void asyncEndpointsServeMoreRequestsThanBlockingOnes() throws Exception {
+		double blocking = measure(false);
+		double async = measure(true);
+
+		System.out.printf("loadtest /getTripDeals with %d clients: blocking %.0f req/s, async %.0f req/s%n",
+				CLIENTS, blocking, async);
+		assertTrue(async > blocking);
+	}
+
+	/** Démarre l'application, applique la charge et retourne le débit mesuré en requêtes par seconde. */
+	private double measure(boolean asyncEndpoints) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TourguideApplication.class)
+				.profiles("loadtest")
+				.properties("server.port=0", "tourguide.execution.async-endpoints=" + asyncEndpoints)
+				.run()) {
+			String port = context.getEnvironment().getProperty("local.server.port");
+			HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+			run(client, port, WARMUP, new AtomicLong());
+			AtomicLong completed = new AtomicLong();
+			long start = System.nanoTime();
+			run(client, port, MEASUREMENT, completed);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			return completed.get() / seconds;
+		}
+	}
+
+	/** Chaque client enchaîne des requêtes sur des utilisateurs internes jusqu'à la fin de la durée. */
+	private void run(HttpClient client, String port, Duration duration, AtomicLong completed) throws Exception {
+		long deadline = System.nanoTime() + duration.toNanos();
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < CLIENTS; c++) {
+				int clientIndex = c;
+				futures.add(clients.submit(() -> {
+					int i = clientIndex;
+					while (System.nanoTime() < deadline) {
+						URI uri = URI.create("http://localhost:" + port + "/getTripDeals?userName=internalUser" + (i++ % 100));
+						HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).build(),
+								HttpResponse.BodyHandlers.discarding());
+						assertEquals(200, response.statusCode());
+						completed.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.helper.InternalUserGenerator;
+import com.openclassrooms.tourguide.helper.InternalUserSnapshot;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestInternalUsers {
+
+	@TempDir
+	Path directory;
+
+	private void assertSameUser(User expected, User actual) {
+		assertEquals(expected.getUserName(), actual.getUserName());
+		assertEquals(expected.getUserId(), actual.getUserId());
+		List<VisitedLocation> expectedLocations = expected.getVisitedLocations();
+		List<VisitedLocation> actualLocations = actual.getVisitedLocations();
+		assertEquals(expectedLocations.size(), actualLocations.size());
+		for (int i = 0; i < expectedLocations.size(); i++) {
+			assertEquals(expectedLocations.get(i).location.latitude, actualLocations.get(i).location.latitude);
+			assertEquals(expectedLocations.get(i).location.longitude, actualLocations.get(i).location.longitude);
+			assertEquals(expectedLocations.get(i).timeVisited, actualLocations.get(i).timeVisited);
+		}
+	}
+
+	@Test
+	public void sameSeedGivesSameUsers() {
+		User[] parallel = new InternalUserGenerator(42).generate(1000);
+		InternalUserGenerator sequential = new InternalUserGenerator(42);
+		User[] other = new InternalUserGenerator(43).generate(1000);
+
+		for (int i = 0; i < parallel.length; i++) {
+			User user = sequential.user(i);
+			assertEquals("internalUser" + i, parallel[i].getUserName());
+			assertEquals(user.getUserId(), parallel[i].getUserId());
+			assertEquals(user.getLastVisitedLocation().location.latitude,
+					parallel[i].getLastVisitedLocation().location.latitude);
+			assertEquals(4, parallel[i].getUserId().version());
+			assertEquals(InternalUserGenerator.LOCATIONS_PER_USER, parallel[i].getVisitedLocations().size());
+			assertNotEquals(other[i].getUserId(), parallel[i].getUserId());
+		}
+	}
+
+	@Test
+	public void snapshotRoundTrip() {
+		User[] users = new InternalUserGenerator(7).generate(500);
+		users[3].clearVisitedLocations();
+		Path snapshot = directory.resolve("users.bin");
+
+		InternalUserSnapshot.write(snapshot, users);
+		User[] loaded = InternalUserSnapshot.read(snapshot);
+
+		assertEquals(users.length, loaded.length);
+		for (int i = 0; i < users.length; i++) {
+			assertSameUser(users[i], loaded[i]);
+		}
+		assertEquals(0, loaded[3].getVisitedLocations().size());
+	}
+
+	@Test
+	public void serviceWritesThenLoadsTheSnapshot() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(200);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		Path snapshot = directory.resolve("internal-users.bin");
+		properties.getInternalUsers().setSnapshot(snapshot);
+
+		TourGuideService generated = new TourGuideService(gpsUtil, rewardsService, properties);
+		generated.tracker.stopTracking();
+		assertTrue(Files.exists(snapshot));
+
+		TourGuideService loaded = new TourGuideService(gpsUtil, rewardsService, properties);
+		loaded.tracker.stopTracking();
+
+		assertEquals(200, loaded.getAllUsers().size());
+		for (int i = 0; i < 200; i++) {
+			assertSameUser(generated.getUser("internalUser" + i), loaded.getUser("internalUser" + i));
+		}
+	}
+
+	@Test
+	public void asyncPopulationCompletesInTheBackground() throws Exception {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(10_000);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		properties.getInternalUsers().setAsync(true);
+
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, properties);
+		tourGuideService.getInternalUsersReady().get(30, TimeUnit.SECONDS);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(10_000, tourGuideService.getAllUsers().size());
+		// Les dates sont relatives à l'instant de génération : seuls l'identifiant et les positions sont comparés
+		User expected = new InternalUserGenerator(0).user(9_999);
+		User actual = tourGuideService.getUser("internalUser9999");
+		assertEquals(expected.getUserId(), actual.getUserId());
+		assertEquals(expected.getLastVisitedLocation().location.longitude, actual.getLastVisitedLocation().location.longitude);
+	}
+}
@@ -0,0 +1,143 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestLocationCoalescing {
+
+	/** GpsUtil qui compte ses appels et les retient jusqu'à libération. */
+	private static class GatedGpsUtil extends GpsUtil {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		private final CountDownLatch interrupted = new CountDownLatch(1);
+
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			calls.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				throw new IllegalStateException("interrupted");
+			}
+			return super.getUserLocation(userId);
+		}
+	}
+
+	private TourGuideService newService(GpsUtil gpsUtil) {
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		return new TourGuideService(gpsUtil, rewardsService, properties);
+	}
+
+	@Test
+	public void concurrentCallersShareOneFetch() throws Exception {
+		GatedGpsUtil gpsUtil = new GatedGpsUtil();
+		TourGuideService tourGuideService = newService(gpsUtil);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		CompletableFuture<VisitedLocation> first = tourGuideService.trackUserLocationAsync(user);
+		assertTrue(gpsUtil.started.await(10, TimeUnit.SECONDS));
+		List<CompletableFuture<VisitedLocation>> others = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			others.add(tourGuideService.trackUserLocationAsync(user));
+		}
+		// appel bloquant, comme celui du tracker ou de getUserLocation
+		CompletableFuture<VisitedLocation> blocking = CompletableFuture.supplyAsync(() -> tourGuideService.trackUserLocation(user));
+		while (tourGuideService.getCoalescedLocationFetches() < 5) {
+			Thread.sleep(5);
+		}
+		gpsUtil.release.countDown();
+
+		VisitedLocation location = first.get(10, TimeUnit.SECONDS);
+		for (CompletableFuture<VisitedLocation> other : others) {
+			assertSame(location, other.get(10, TimeUnit.SECONDS));
+		}
+		assertSame(location, blocking.get(10, TimeUnit.SECONDS));
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, gpsUtil.calls.get());
+		assertEquals(1, user.getVisitedLocations().size());
+	}
+
+	@Test
+	public void sharedFetchIsCancelledOnlyByItsLastCaller() throws Exception {
+		GatedGpsUtil gpsUtil = new GatedGpsUtil();
+		TourGuideService tourGuideService = newService(gpsUtil);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		CompletableFuture<VisitedLocation> first = tourGuideService.trackUserLocationAsync(user);
+		CompletableFuture<VisitedLocation> second = tourGuideService.trackUserLocationAsync(user);
+		assertTrue(gpsUtil.started.await(10, TimeUnit.SECONDS));
+
+		first.cancel(true);
+		assertFalse(gpsUtil.interrupted.await(200, TimeUnit.MILLISECONDS));
+		second.cancel(true);
+		assertTrue(gpsUtil.interrupted.await(10, TimeUnit.SECONDS));
+
+		// le suivi abandonné est retiré : l'appel suivant en démarre un nouveau
+		gpsUtil.release.countDown();
+		VisitedLocation location = tourGuideService.trackUserLocationAsync(user).get(10, TimeUnit.SECONDS);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(2, gpsUtil.calls.get());
+		assertEquals(location, user.getLastVisitedLocation());
+	}
+
+	@Test
+	public void pipelineFetchIsSharedAndTimed() throws Exception {
+		GatedGpsUtil gpsUtil = new GatedGpsUtil();
+		TourGuideService tourGuideService = newService(gpsUtil);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		tourGuideService.bindTo(registry);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> tourGuideService.trackAllUsersAsync(List.of(user)));
+		assertTrue(gpsUtil.started.await(10, TimeUnit.SECONDS));
+		CompletableFuture<VisitedLocation> blocking = CompletableFuture.supplyAsync(() -> tourGuideService.trackUserLocation(user));
+		while (tourGuideService.getCoalescedLocationFetches() < 1) {
+			Thread.sleep(5);
+		}
+		gpsUtil.release.countDown();
+
+		batch.get(10, TimeUnit.SECONDS);
+		assertSame(user.getLastVisitedLocation(), blocking.get(10, TimeUnit.SECONDS));
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, gpsUtil.calls.get());
+		assertEquals(1, user.getVisitedLocations().size());
+		assertEquals(1, registry.get("tourguide.track.location").timer().count());
+	}
+}
@@ -0,0 +1,87 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.LocationHistory;
+import com.openclassrooms.tourguide.user.RingBufferLocationHistory;
+
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+
+public class TestLocationHistory {
+
+	private final UUID userId = UUID.randomUUID();
+
+	private VisitedLocation at(long millis) {
+		return new VisitedLocation(userId, new Location(millis, 0), new Date(millis));
+	}
+
+	@Test
+	public void oldestLocationsAreEvictedBeyondMaxCount() {
+		LocationHistory history = new RingBufferLocationHistory(3, null);
+		assertNull(history.last());
+
+		for (int i = 0; i < 5; i++) {
+			history.append(at(i));
+		}
+
+		LocationHistory.Snapshot snapshot = history.snapshot();
+		assertEquals(3, history.size());
+		assertEquals(2, snapshot.firstSequence());
+		assertEquals(5, snapshot.endSequence());
+		assertEquals(2.0, snapshot.locations().get(0).location.latitude);
+		assertSame(snapshot.locations().get(2), history.last());
+
+		LocationHistory.Snapshot since = history.since(4);
+		assertEquals(1, since.locations().size());
+		assertEquals(4, since.firstSequence());
+		assertEquals(2, history.since(0).firstSequence());
+	}
+
+	@Test
+	public void locationsOlderThanMaxAgeAreEvicted() {
+		LocationHistory history = new RingBufferLocationHistory(100, Duration.ofMillis(1000));
+		history.append(at(0));
+		history.append(at(500));
+		history.append(at(1200));
+
+		List<VisitedLocation> locations = history.snapshot().locations();
+		assertEquals(2, locations.size());
+		assertEquals(500, locations.get(0).timeVisited.getTime());
+
+		history.retain(1, null);
+		assertEquals(1, history.size());
+		assertEquals(1200, history.last().timeVisited.getTime());
+	}
+
+	@Test
+	public void snapshotsAreConsistentDuringAppends() throws Exception {
+		LocationHistory history = new RingBufferLocationHistory(50, null);
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+			for (int i = 0; i < 100_000; i++) {
+				history.append(at(i));
+			}
+		});
+		while (!writer.isDone()) {
+			LocationHistory.Snapshot snapshot = history.snapshot();
+			List<VisitedLocation> locations = snapshot.locations();
+			assertTrue(locations.size() <= 50);
+			for (int i = 0; i < locations.size(); i++) {
+				assertEquals(snapshot.firstSequence() + i, locations.get(i).timeVisited.getTime());
+			}
+		}
+		writer.get();
+		assertEquals(99_999, history.last().timeVisited.getTime());
+	}
+}
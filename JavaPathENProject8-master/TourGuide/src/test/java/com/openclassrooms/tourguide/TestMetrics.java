@@ -0,0 +1,79 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import rewardCentral.RewardCentral;
+
+public class TestMetrics {
+
+	@Test
+	public void serviceCallsAreTimedOnceBound() {
+		GpsUtil gpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 5;
+			}
+		});
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, properties);
+
+		// Appels avant liaison : non comptés
+		User early = new User(UUID.randomUUID(), "early", "000", "early@tourGuide.com");
+		tourGuideService.getTripDeals(early);
+
+		PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		rewardsService.bindTo(registry);
+		tourGuideService.bindTo(registry);
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		tourGuideService.addUser(user);
+		Attraction attraction = rewardsService.getAttractionCatalog().attractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		tourGuideService.trackUserLocation(user);
+		rewardsService.getRewardPoints(attraction, user);
+		tourGuideService.getTripDeals(user);
+		tourGuideService.getTripDeals(user);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, registry.get("tourguide.track.location").timer().count());
+		assertEquals(1, registry.get("tourguide.rewards.calculate").timer().count());
+		assertEquals(1, registry.get("tourguide.rewards.points").tag("cache", "miss").timer().count());
+		assertEquals(1, registry.get("tourguide.rewards.points").tag("cache", "hit").timer().count());
+		assertEquals(2, registry.get("tourguide.trip.deals").timer().count());
+		assertEquals(1, registry.get("tourguide.vendor.calls").tag("vendor", "gpsUtil").timer().count());
+		assertEquals(1, registry.get("tourguide.vendor.calls").tag("vendor", "RewardCentral").timer().count());
+		assertEquals(1, registry.get("tourguide.vendor.calls").tag("vendor", "TripPricer").timer().count());
+		assertEquals(2, registry.get("cache.size").tag("cache", "tripDeals").gauge().value());
+		assertEquals(1, registry.get("tourguide.users").gauge().value());
+		assertEquals(0, registry.get("executor.queued").tag("name", "async-pricer").gauge().value());
+		assertEquals(0, registry.get("tourguide.tracker.users.tracked").gauge().value());
+		assertTrue(registry.scrape().contains("tourguide_tracker_lag_seconds"));
+	}
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.cache.RewardPointsCache;
+
+public class TestRewardPointsCache {
+
+	@Test
+	public void concurrentLookupsShareOneLoad() throws Exception {
+		RewardPointsCache cache = new RewardPointsCache(100, Duration.ofHours(1));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		List<CompletableFuture<Integer>> results = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			results.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return cache.get(attractionId, userId, (a, u) -> {
+					loads.incrementAndGet();
+					try {
+						TimeUnit.MILLISECONDS.sleep(100);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return 42;
+				});
+			}, executor));
+		}
+		start.countDown();
+		for (CompletableFuture<Integer> result : results) {
+			assertEquals(42, result.get());
+		}
+		executor.shutdown();
+
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(15, cache.getHitCount());
+	}
+
+	@Test
+	public void cacheIsBounded() {
+		RewardPointsCache cache = new RewardPointsCache(10, Duration.ofHours(1));
+		UUID userId = UUID.randomUUID();
+		for (int i = 0; i < 1000; i++) {
+			cache.get(UUID.randomUUID(), userId, (a, u) -> 1);
+		}
+		cache.asCache().cleanUp();
+
+		assertTrue(cache.estimatedSize() <= 10);
+		assertTrue(cache.getEvictionCount() >= 990);
+	}
+
+	@Test
+	public void failedLoadIsNotKeptWhateverTheError() throws Exception {
+		RewardPointsCache cache = new RewardPointsCache(100, Duration.ofHours(1));
+		UUID attractionId = UUID.randomUUID();
+		UUID userId = UUID.randomUUID();
+
+		assertThrows(AssertionError.class, () -> cache.get(attractionId, userId, (a, u) -> {
+			throw new AssertionError("RewardCentral failure");
+		}));
+
+		// Un futur resté incomplet bloquerait ce second appel
+		CompletableFuture<Integer> retry = CompletableFuture.supplyAsync(() -> cache.get(attractionId, userId, (a, u) -> 7));
+		assertEquals(7, retry.get(5, TimeUnit.SECONDS));
+	}
+}
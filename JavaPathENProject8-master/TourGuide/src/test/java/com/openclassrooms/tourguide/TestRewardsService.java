@@ -3,20 +3,27 @@ package com.openclassrooms.tourguide;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
 import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.RingBufferLocationHistory;
 import com.openclassrooms.tourguide.user.User;
 import com.openclassrooms.tourguide.user.UserReward;
 
@@ -39,6 +46,154 @@ public class TestRewardsService {
 		assertTrue(userRewards.size() == 1);
 	}
 
+	@Test
+	public void rewardsCoverWholeCatalogue() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		List<Attraction> attractions = gpsUtil.getAttractions();
+		Attraction attraction = attractions.get(attractions.size() - 1);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user);
+		rewardsService.shutdown();
+
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(attraction.attractionName, user.getUserRewards().get(0).attraction.attractionName);
+	}
+
+	@Test
+	public void prefilteredScanMatchesFullScan() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardCentral fixedPoints = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 1;
+			}
+		};
+		// Même algorithme que le code d'origine, sur tout le catalogue et sans préfiltre
+		RewardsService fullScanService = new RewardsService(gpsUtil, fixedPoints) {
+			@Override
+			public void calculateRewards(User user) {
+				for (VisitedLocation visitedLocation : user.getVisitedLocations()) {
+					for (Attraction attraction : getAttractionIndex().attractions()) {
+						if (isWithinAttractionProximity(attraction, visitedLocation.location)
+								&& user.getUserRewards().stream()
+									.noneMatch(r -> r.attraction.attractionName.equals(attraction.attractionName))) {
+							user.addUserReward(new UserReward(visitedLocation, attraction, 1));
+						}
+					}
+				}
+			}
+		};
+		RewardsService prefilteredService = new RewardsService(gpsUtil, fixedPoints);
+
+		Random fullScanRandom = new Random(1);
+		Random prefilteredRandom = new Random(1);
+		int rewarded = 0;
+		for (int i = 0; i < 200; i++) {
+			User fullScanUser = randomUser(i, fullScanRandom);
+			User prefilteredUser = randomUser(i, prefilteredRandom);
+			fullScanService.calculateRewards(fullScanUser);
+			prefilteredService.calculateRewards(prefilteredUser);
+
+			assertEquals(rewardedAttractions(fullScanUser), rewardedAttractions(prefilteredUser));
+			rewarded += fullScanUser.getUserRewards().size();
+		}
+		fullScanService.shutdown();
+		prefilteredService.shutdown();
+
+		assertTrue(rewarded > 0);
+	}
+
+	private static User randomUser(int index, Random random) {
+		User user = new User(new UUID(0, index), "user" + index, "000", "user" + index + "@tourGuide.com");
+		for (int j = 0; j < 50; j++) {
+			// Positions concentrées sur les États-Unis pour que certaines tombent près d'une attraction
+			Location location = new Location(25 + random.nextDouble() * 25, -125 + random.nextDouble() * 55);
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), location, new Date()));
+		}
+		return user;
+	}
+
+	private static Set<String> rewardedAttractions(User user) {
+		return user.getUserRewards().stream().map(r -> r.attraction.attractionName).collect(Collectors.toSet());
+	}
+
+	@Test
+	public void onlyNewLocationsAreEvaluatedUntilProximityChanges() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 1;
+			}
+		});
+
+		// Compte les positions effectivement évaluées par l'étape de proximité
+		AtomicInteger evaluated = new AtomicInteger();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		user.setVisitedLocationHistory(new RingBufferLocationHistory() {
+			@Override
+			public long scan(long sequence, LocationVisitor visitor) {
+				return super.scan(sequence, (s, latitude, longitude, timeMillis) -> {
+					evaluated.incrementAndGet();
+					visitor.visit(s, latitude, longitude, timeMillis);
+				});
+			}
+		});
+		Attraction attraction = rewardsService.getAttractionIndex().attractions().get(0);
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), new Location(0, 0), new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(0, user.getUserRewards().size());
+		assertEquals(1, evaluated.getAndSet(0));
+
+		user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+		rewardsService.calculateRewards(user);
+		assertEquals(1, user.getUserRewards().size());
+		assertEquals(1, evaluated.getAndSet(0));
+
+		rewardsService.calculateRewards(user);
+		assertEquals(0, evaluated.get());
+
+		rewardsService.setProximityBuffer(Integer.MAX_VALUE);
+		rewardsService.calculateRewards(user);
+		rewardsService.shutdown();
+
+		assertEquals(2, evaluated.get());
+		assertEquals(rewardsService.getAttractionIndex().size(), user.getUserRewards().size());
+	}
+
+	@Test
+	public void bulkCalculationResolvesEachDistinctPairOnce() {
+		GpsUtil gpsUtil = new GpsUtil();
+		AtomicInteger rewardCentralCalls = new AtomicInteger();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				rewardCentralCalls.incrementAndGet();
+				return 1;
+			}
+		});
+		Attraction attraction = rewardsService.getAttractionIndex().attractions().get(0);
+
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			User user = new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com");
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			user.addToVisitedLocations(new VisitedLocation(user.getUserId(), attraction, new Date()));
+			users.add(user);
+			users.add(user);
+		}
+		rewardsService.calculateRewardsForAllUsers(users);
+		rewardsService.shutdown();
+
+		assertEquals(10, rewardCentralCalls.get());
+		for (User user : users) {
+			assertEquals(1, user.getUserRewards().size());
+		}
+	}
+
 	@Test
 	public void isWithinAttractionProximity() {
 		GpsUtil gpsUtil = new GpsUtil();
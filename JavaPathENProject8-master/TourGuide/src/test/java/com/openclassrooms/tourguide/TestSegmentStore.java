@@ -0,0 +1,304 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.store.SegmentStore;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+public class TestSegmentStore {
+
+	/** Dix enregistrements par segment. */
+	private static final long SEGMENT_BYTES = 10 * SegmentStore.RECORD_BYTES;
+
+	@TempDir
+	Path directory;
+
+	private VisitedLocation location(UUID userId, int i) {
+		return new VisitedLocation(userId, new Location(i, -i), new Date(1_000_000L + i));
+	}
+
+	@Test
+	public void latestLocationsAndRewardsSurviveReopen() {
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		SegmentStore store = SegmentStore.open(directory, SEGMENT_BYTES);
+		for (int i = 0; i < 25; i++) {
+			store.appendLocation(location(i % 2 == 0 ? first : second, i));
+		}
+		store.appendReward(location(first, 4), "Disneyland", 250);
+		store.close();
+
+		SegmentStore reopened = SegmentStore.open(directory, SEGMENT_BYTES);
+		Map<UUID, VisitedLocation> latest = reopened.loadLatestLocations();
+		List<Long> rewards = new ArrayList<>();
+		reopened.forEachReward((userId, visitedLocation, attractionKey, rewardPoints) -> {
+			assertEquals(first, userId);
+			assertEquals(4, visitedLocation.location.latitude);
+			rewards.add(attractionKey);
+			rewards.add((long) rewardPoints);
+		});
+		reopened.close();
+
+		assertEquals(3, reopened.segmentCount());
+		assertEquals(2, latest.size());
+		assertEquals(24, latest.get(first).location.latitude);
+		assertEquals(-24, latest.get(first).location.longitude);
+		assertEquals(1_000_024L, latest.get(first).timeVisited.getTime());
+		assertEquals(23, latest.get(second).location.latitude);
+		assertEquals(List.of(SegmentStore.attractionKey("Disneyland"), 250L), rewards);
+	}
+
+	@Test
+	public void compactionKeepsLatestLocationsAndOneRewardPerAttraction() {
+		List<UUID> users = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+		SegmentStore store = SegmentStore.open(directory, SEGMENT_BYTES);
+		for (int i = 0; i < 60; i++) {
+			store.appendLocation(location(users.get(i % 3), i));
+		}
+		store.appendReward(location(users.get(0), 0), "Disneyland", 10);
+		store.appendReward(location(users.get(0), 3), "Disneyland", 10);
+		store.appendReward(location(users.get(1), 1), "Disneyland", 10);
+		Map<UUID, VisitedLocation> before = store.loadLatestLocations();
+
+		store.compact(5);
+		store.appendLocation(location(users.get(2), 100));
+
+		// 5 positions par utilisateur et 2 récompenses compactées, plus la position ajoutée ensuite
+		assertEquals((3 * 5 + 2 + 1) * SegmentStore.RECORD_BYTES, store.sizeBytes());
+		assertEquals(3, store.segmentCount());
+		Map<UUID, VisitedLocation> after = store.loadLatestLocations();
+		assertEquals(before.get(users.get(0)).location.latitude, after.get(users.get(0)).location.latitude);
+		assertEquals(100, after.get(users.get(2)).location.latitude);
+		store.close();
+
+		SegmentStore reopened = SegmentStore.open(directory, SEGMENT_BYTES);
+		int[] rewards = new int[1];
+		reopened.forEachReward((userId, visitedLocation, attractionKey, rewardPoints) -> rewards[0]++);
+		assertEquals(2, rewards[0]);
+		assertEquals(before.get(users.get(1)).location.latitude,
+				reopened.loadLatestLocations().get(users.get(1)).location.latitude);
+		reopened.close();
+	}
+
+	@Test
+	public void incompleteTailIsTruncatedOnOpen() throws Exception {
+		UUID userId = UUID.randomUUID();
+		SegmentStore store = SegmentStore.open(directory, SEGMENT_BYTES);
+		for (int i = 0; i < 3; i++) {
+			store.appendLocation(location(userId, i));
+		}
+		store.close();
+		Path segment;
+		try (Stream<Path> files = Files.list(directory)) {
+			segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+		}
+		Files.write(segment, new byte[] {1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+		SegmentStore reopened = SegmentStore.open(directory, SEGMENT_BYTES);
+		assertEquals(3 * SegmentStore.RECORD_BYTES, reopened.sizeBytes());
+		reopened.appendLocation(location(userId, 3));
+		reopened.close();
+
+		SegmentStore again = SegmentStore.open(directory, SEGMENT_BYTES);
+		assertEquals(3, again.loadLatestLocations().get(userId).location.latitude);
+		again.close();
+	}
+
+	@Test
+	public void interruptedCompactionIsFinishedOnOpen() throws Exception {
+		List<UUID> users = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+		Path storeDirectory = directory.resolve("store");
+		Path backup = Files.createDirectories(directory.resolve("backup"));
+		SegmentStore store = SegmentStore.open(storeDirectory, SEGMENT_BYTES);
+		for (int i = 0; i < 63; i++) {
+			store.appendLocation(location(users.get(i % 3), i));
+		}
+		store.flush();
+		List<String> inputs = segmentNames(storeDirectory);
+		for (String name : inputs) {
+			Files.copy(storeDirectory.resolve(name), backup.resolve(name));
+		}
+		store.compact(5);
+		long compactedSize = store.sizeBytes();
+		Map<UUID, VisitedLocation> expected = store.loadLatestLocations();
+		store.close();
+		List<String> compacted = segmentNames(storeDirectory);
+		List<String> marker = new ArrayList<>();
+		for (String name : inputs) {
+			String id = Long.toString(Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length())));
+			marker.add((compacted.contains(name) ? "replace " : "delete ") + id);
+		}
+
+		// Interruption juste après le marqueur : segments d'origine intacts, versions compactées non renommées
+		for (String name : inputs) {
+			if (compacted.contains(name)) {
+				Files.move(storeDirectory.resolve(name), storeDirectory.resolve(name.replace(".log", ".compacting")));
+			}
+			Files.copy(backup.resolve(name), storeDirectory.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+		}
+		Files.write(storeDirectory.resolve("compaction.commit"), marker);
+		assertRecovered(storeDirectory, compacted, compactedSize, expected);
+
+		// Interruption après les renommages, avant la suppression du marqueur : le rejeu ne doit rien perdre
+		Files.write(storeDirectory.resolve("compaction.commit"), marker);
+		assertRecovered(storeDirectory, compacted, compactedSize, expected);
+	}
+
+	private void assertRecovered(Path storeDirectory, List<String> compacted, long compactedSize,
+			Map<UUID, VisitedLocation> expected) throws Exception {
+		SegmentStore reopened = SegmentStore.open(storeDirectory, SEGMENT_BYTES);
+		assertEquals(compactedSize, reopened.sizeBytes());
+		Map<UUID, VisitedLocation> latest = reopened.loadLatestLocations();
+		reopened.close();
+		assertEquals(compacted, segmentNames(storeDirectory));
+		assertTrue(Files.notExists(storeDirectory.resolve("compaction.commit")));
+		assertEquals(expected.size(), latest.size());
+		expected.forEach((userId, location) ->
+				assertEquals(location.location.latitude, latest.get(userId).location.latitude));
+	}
+
+	private List<String> segmentNames(Path storeDirectory) throws Exception {
+		try (Stream<Path> files = Files.list(storeDirectory)) {
+			return files.map(file -> file.getFileName().toString())
+					.filter(name -> name.endsWith(".log"))
+					.sorted()
+					.toList();
+		}
+	}
+
+	@Test
+	public void directoryCannotBeOpenedTwice() {
+		SegmentStore store = SegmentStore.open(directory, SEGMENT_BYTES);
+		assertThrows(IllegalStateException.class, () -> SegmentStore.open(directory, SEGMENT_BYTES));
+		store.close();
+		SegmentStore.open(directory, SEGMENT_BYTES).close();
+	}
+
+	@Test
+	public void internalUsersResumeFromTheStore() {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 7;
+			}
+		});
+		Attraction attraction = rewardsService.getAttractionCatalog().attractions().get(0);
+		GpsUtil atAttraction = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, new Location(attraction.latitude, attraction.longitude), new Date());
+			}
+		};
+		InternalTestHelper.setInternalUserNumber(3);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		properties.getStore().setEnabled(true);
+		properties.getStore().setDirectory(directory);
+
+		TourGuideService tourGuideService = new TourGuideService(atAttraction, rewardsService, properties);
+		User user = tourGuideService.getUser("internalUser0");
+		VisitedLocation tracked = tourGuideService.trackUserLocation(user);
+		Set<String> rewards = rewardNames(user);
+		tourGuideService.tracker.stopTracking();
+		tourGuideService.getHistoryStore().close();
+
+		TourGuideService restarted = new TourGuideService(atAttraction, rewardsService, properties);
+		User restored = restarted.getUser("internalUser0");
+		restarted.tracker.stopTracking();
+		restarted.getHistoryStore().close();
+
+		assertEquals(user.getUserId(), restored.getUserId());
+		assertEquals(1, restored.getVisitedLocations().size());
+		assertEquals(tracked.location.latitude, restored.getLastVisitedLocation().location.latitude);
+		assertEquals(tracked.timeVisited, restored.getLastVisitedLocation().timeVisited);
+		assertTrue(rewards.contains(attraction.attractionName));
+		assertEquals(rewards, rewardNames(restored));
+		assertTrue(restored.getUserRewards().stream().allMatch(reward -> reward.getRewardPoints() == 7));
+		assertEquals(1, restarted.getUser("internalUser1").getVisitedLocations().size());
+	}
+
+	@Test
+	public void rewardsSurviveACatalogueReorder() {
+		GpsUtil gpsUtil = new GpsUtil();
+		List<Attraction> catalogue = gpsUtil.getAttractions();
+		Attraction attraction = catalogue.get(0);
+		GpsUtil atAttraction = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				return new VisitedLocation(userId, new Location(attraction.latitude, attraction.longitude), new Date());
+			}
+		};
+		GpsUtil reordered = new GpsUtil() {
+			@Override
+			public List<Attraction> getAttractions() {
+				return catalogue.reversed();
+			}
+		};
+		RewardCentral fixedPoints = new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 7;
+			}
+		};
+		InternalTestHelper.setInternalUserNumber(1);
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		properties.getStore().setEnabled(true);
+		properties.getStore().setDirectory(directory);
+
+		TourGuideService tourGuideService = new TourGuideService(atAttraction,
+				new RewardsService(gpsUtil, fixedPoints), properties);
+		User user = tourGuideService.getUser("internalUser0");
+		tourGuideService.trackUserLocation(user);
+		Set<String> rewards = rewardNames(user);
+		tourGuideService.tracker.stopTracking();
+		tourGuideService.getHistoryStore().close();
+
+		RewardsService reorderedRewards = new RewardsService(reordered, fixedPoints);
+		List<Attraction> reorderedCatalogue = reorderedRewards.getAttractionCatalog().attractions();
+		assertEquals(attraction.attractionName, reorderedCatalogue.get(reorderedCatalogue.size() - 1).attractionName);
+		TourGuideService restarted = new TourGuideService(atAttraction, reorderedRewards, properties);
+		User restored = restarted.getUser("internalUser0");
+		restarted.tracker.stopTracking();
+		restarted.getHistoryStore().close();
+
+		assertTrue(rewards.contains(attraction.attractionName));
+		assertEquals(rewards, rewardNames(restored));
+	}
+
+	private Set<String> rewardNames(User user) {
+		return user.getUserRewards().stream()
+				.map(reward -> reward.attraction.attractionName)
+				.collect(Collectors.toSet());
+	}
+}
@@ -0,0 +1,115 @@
+package com.openclassrooms.tourguide;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+@SpringBootTest(properties = "tourguide.tracker.initial-delay=1h")
+@AutoConfigureMockMvc
+public class TestTourGuideController {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private TourGuideService tourGuideService;
+
+	@BeforeAll
+	public static void createInternalUsers() {
+		// Les autres classes de test modifient ce nombre avant que le contexte ne soit créé
+		InternalTestHelper.setInternalUserNumber(100);
+	}
+
+	@Test
+	public void vendorEndpointsAreServedAsynchronously() throws Exception {
+		MvcResult deals = mockMvc.perform(get("/getTripDeals").param("userName", "internalUser0"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(deals))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].name").exists());
+
+		MvcResult nearby = mockMvc.perform(get("/getNearbyAttractions").param("userName", "internalUser0"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(nearby))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(5));
+	}
+
+	@Test
+	public void usersOverviewStreamsOneLinePerUser() throws Exception {
+		MvcResult result = mockMvc.perform(post("/getUsersOverview")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[\"internalUser0\", \"internalUser1\", \"nobody\"]"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		List<String> lines = Arrays.asList(body.trim().split("\n"));
+		assertEquals(3, lines.size());
+		assertTrue(lines.stream().anyMatch(line -> line.contains("\"userName\":\"nobody\"")
+				&& line.contains("\"error\":\"Unknown user\"")));
+		assertEquals(2, lines.stream().filter(line -> line.contains("\"nearbyAttractions\":[{")).count());
+	}
+
+	@Test
+	public void currentLocationsExportReadsOnlyKnownLocations() throws Exception {
+		User unlocated = new User(UUID.randomUUID(), "unlocated", "000", "unlocated@tourGuide.com");
+		tourGuideService.addUser(unlocated);
+
+		MvcResult result = mockMvc.perform(get("/getAllCurrentLocations"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		String[] lines = body.trim().split("\n");
+		assertEquals(tourGuideService.getAllUsers().size() - 1, lines.length);
+		assertTrue(lines[0].startsWith("{\"userId\":\""));
+		assertTrue(lines[0].contains("\"timeVisited\":\""));
+		assertTrue(unlocated.getVisitedLocations().isEmpty());
+	}
+
+	@Test
+	public void metricsEndpointExposesTourGuideMeters() throws Exception {
+		MvcResult deals = mockMvc.perform(get("/getTripDeals").param("userName", "internalUser1"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(deals)).andExpect(status().isOk());
+
+		mockMvc.perform(get("/actuator/metrics/tourguide.trip.deals"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.baseUnit").value("seconds"));
+		mockMvc.perform(get("/actuator/metrics/tourguide.vendor.calls").param("tag", "vendor:TripPricer"))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/actuator/metrics/executor.queued").param("tag", "name:async-gps"))
+				.andExpect(status().isOk());
+	}
+}
@@ -3,17 +3,23 @@ package com.openclassrooms.tourguide;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import gpsUtil.GpsUtil;
 import gpsUtil.location.Attraction;
+import gpsUtil.location.Location;
 import gpsUtil.location.VisitedLocation;
 import rewardCentral.RewardCentral;
 
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
 import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
 import com.openclassrooms.tourguide.helper.InternalTestHelper;
 import com.openclassrooms.tourguide.service.RewardsService;
@@ -94,6 +100,44 @@ public class TestTourGuideService {
 		assertEquals(user.getUserId(), visitedLocation.userId);
 	}
 
+	@Test
+	public void trackAllUsersOnVirtualThreads() {
+		// Relève le nombre maximal d'appels simultanés à gpsUtil
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger peak = new AtomicInteger();
+		GpsUtil gpsUtil = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					TimeUnit.MILLISECONDS.sleep(20);
+					return new VisitedLocation(userId, new Location(0, 0), new Date());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		};
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getExecution().setMode(ExecutionMode.VIRTUAL);
+		properties.getExecution().setMaxConcurrentGpsCalls(5);
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral(), properties);
+		InternalTestHelper.setInternalUserNumber(20);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService, properties);
+		tourGuideService.tracker.stopTracking();
+
+		List<User> allUsers = tourGuideService.getAllUsers();
+		tourGuideService.trackAllUsersAsync(allUsers);
+
+		for (User user : allUsers) {
+			assertTrue(user.getVisitedLocations().size() >= 4);
+		}
+		assertTrue(peak.get() <= 5, "peak concurrent gpsUtil calls: " + peak.get());
+		assertTrue(peak.get() > 1);
+	}
+
 	@Test
 	public void getNearbyAttractions() {
 		GpsUtil gpsUtil = new GpsUtil();
@@ -0,0 +1,134 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.dto.NearbyAttractionDTO;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+import tripPricer.Provider;
+
+public class TestTourGuideServiceAsync {
+
+	/** GpsUtil dont les appels restent bloqués jusqu'à interruption. */
+	private static class BlockingGpsUtil extends GpsUtil {
+
+		private final CountDownLatch started = new CountDownLatch(1);
+
+		private final CountDownLatch interrupted = new CountDownLatch(1);
+
+		@Override
+		public VisitedLocation getUserLocation(UUID userId) {
+			started.countDown();
+			try {
+				new CountDownLatch(1).await();
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			throw new IllegalStateException("interrupted");
+		}
+	}
+
+	private TourGuideService newService(GpsUtil gpsUtil, TourGuideProperties properties) {
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		return new TourGuideService(gpsUtil, rewardsService, properties);
+	}
+
+	@Test
+	public void locationRewardsAndDealsCompose() throws Exception {
+		TourGuideService tourGuideService = newService(new GpsUtil(), new TourGuideProperties());
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		List<Provider> providers = tourGuideService.trackUserLocationAsync(user)
+				.thenCompose(visitedLocation -> tourGuideService.getTripDealsAsync(user))
+				.get(30, TimeUnit.SECONDS);
+		List<NearbyAttractionDTO> nearby = tourGuideService.getNearbyAttractionsDetailedAsync(user)
+				.get(30, TimeUnit.SECONDS);
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, user.getVisitedLocations().size());
+		assertEquals(providers, user.getTripDeals());
+		assertEquals(5, nearby.size());
+	}
+
+	@Test
+	public void timeoutInterruptsBlockedCall() throws Exception {
+		BlockingGpsUtil gpsUtil = new BlockingGpsUtil();
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getExecution().setAsyncTimeout(Duration.ofMillis(200));
+		TourGuideService tourGuideService = newService(gpsUtil, properties);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		CompletableFuture<VisitedLocation> future = tourGuideService.trackUserLocationAsync(user);
+		ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+		tourGuideService.tracker.stopTracking();
+
+		assertInstanceOf(TimeoutException.class, error.getCause());
+		assertTrue(gpsUtil.interrupted.await(10, TimeUnit.SECONDS));
+		assertTrue(user.getVisitedLocations().isEmpty());
+	}
+
+	@Test
+	public void cancellationInterruptsBlockedCall() throws Exception {
+		BlockingGpsUtil gpsUtil = new BlockingGpsUtil();
+		TourGuideService tourGuideService = newService(gpsUtil, new TourGuideProperties());
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		CompletableFuture<List<NearbyAttractionDTO>> future = tourGuideService.getNearbyAttractionsDetailedAsync(user);
+		assertTrue(gpsUtil.started.await(10, TimeUnit.SECONDS));
+		future.cancel(true);
+		tourGuideService.tracker.stopTracking();
+
+		assertTrue(gpsUtil.interrupted.await(10, TimeUnit.SECONDS));
+		assertTrue(future.isCancelled());
+	}
+
+	@Test
+	public void saturatedExecutorRejectsCalls() throws Exception {
+		BlockingGpsUtil gpsUtil = new BlockingGpsUtil();
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getExecution().setPlatformPoolSize(1);
+		properties.getExecution().setAsyncQueueCapacity(1);
+		TourGuideService tourGuideService = newService(gpsUtil, properties);
+		// utilisateurs distincts : les suivis concurrents d'un même utilisateur sont partagés
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+		User user2 = new User(UUID.randomUUID(), "jon2", "000", "jon2@tourGuide.com");
+		User user3 = new User(UUID.randomUUID(), "jon3", "000", "jon3@tourGuide.com");
+
+		CompletableFuture<VisitedLocation> running = tourGuideService.trackUserLocationAsync(user);
+		assertTrue(gpsUtil.started.await(10, TimeUnit.SECONDS));
+		CompletableFuture<VisitedLocation> queued = tourGuideService.trackUserLocationAsync(user2);
+		CompletableFuture<VisitedLocation> rejected = tourGuideService.trackUserLocationAsync(user3);
+		tourGuideService.tracker.stopTracking();
+
+		ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, error.getCause());
+		assertFalse(queued.isDone());
+		running.cancel(true);
+		queued.cancel(true);
+	}
+}
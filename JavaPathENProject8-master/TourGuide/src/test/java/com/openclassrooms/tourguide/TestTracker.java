@@ -0,0 +1,84 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Location;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+public class TestTracker {
+
+	@Test
+	public void unreachedUsersAreCarriedOver() throws Exception {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(20);
+
+		TourGuideProperties properties = new TourGuideProperties();
+		properties.getTracker().setInitialDelay(Duration.ofHours(1));
+		properties.getPipeline().setFetchConcurrency(2);
+
+		// Les deux premiers appels restent bloqués jusqu'à l'échéance : les autres utilisateurs arrivent en retard
+		Set<UUID> tracked = ConcurrentHashMap.newKeySet();
+		CountDownLatch fetching = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		GpsUtil gatedGps = new GpsUtil() {
+			@Override
+			public VisitedLocation getUserLocation(UUID userId) {
+				tracked.add(userId);
+				fetching.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return new VisitedLocation(userId, new Location(0, 0), new Date());
+			}
+		};
+		TourGuideService tourGuideService = new TourGuideService(gatedGps, rewardsService, properties);
+		List<User> users = tourGuideService.getAllUsers();
+
+		List<User> late = new CopyOnWriteArrayList<>();
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+		CompletableFuture<Integer> cycle = CompletableFuture.supplyAsync(
+				() -> tourGuideService.trackUsersBefore(users, deadline, late::add));
+		assertTrue(fetching.await(5, TimeUnit.SECONDS));
+		while (System.nanoTime() - deadline < 0) {
+			LockSupport.parkNanos(deadline - System.nanoTime());
+		}
+		release.countDown();
+
+		assertEquals(2, cycle.get(5, TimeUnit.SECONDS));
+		assertEquals(18, late.size());
+		assertTrue(late.stream().noneMatch(user -> tracked.contains(user.getUserId())));
+
+		// Cycle suivant sans échéance proche : les utilisateurs reportés sont tous suivis
+		int carried = tourGuideService.trackUsersBefore(late, System.nanoTime() + TimeUnit.HOURS.toNanos(1),
+				user -> { });
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(18, carried);
+		assertEquals(20, tracked.size());
+	}
+}
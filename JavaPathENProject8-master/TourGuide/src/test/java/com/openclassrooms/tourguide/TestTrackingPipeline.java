@@ -0,0 +1,160 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.concurrent.ExecutionMode;
+import com.openclassrooms.tourguide.config.TourGuideProperties;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TrackingPipeline;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import gpsUtil.location.Attraction;
+import gpsUtil.location.VisitedLocation;
+import rewardCentral.RewardCentral;
+
+public class TestTrackingPipeline {
+
+	private static final int QUEUE_CAPACITY = 2;
+
+	private List<User> users(int count) {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			users.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+		return users;
+	}
+
+	private TourGuideProperties.Pipeline singleWorkerStages() {
+		TourGuideProperties.Pipeline config = new TourGuideProperties.Pipeline();
+		config.setQueueCapacity(QUEUE_CAPACITY);
+		config.setFetchConcurrency(1);
+		config.setAppendConcurrency(1);
+		config.setProximityConcurrency(1);
+		config.setRewardsConcurrency(1);
+		return config;
+	}
+
+	@Test
+	public void slowRewardsBlockUpstreamStages() throws Exception {
+		CountDownLatch rewardCentralAvailable = new CountDownLatch(1);
+		RewardsService rewardsService = new RewardsService(new GpsUtil(), new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				try {
+					rewardCentralAvailable.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return 10;
+			}
+		});
+		Attraction attraction = rewardsService.getAttractionCatalog().attractions().get(0);
+		AtomicInteger fetched = new AtomicInteger();
+		TrackingPipeline pipeline = new TrackingPipeline(singleWorkerStages(), ExecutionMode.PLATFORM, (user, tracked) -> {
+			fetched.incrementAndGet();
+			return new VisitedLocation(user.getUserId(), attraction, new Date());
+		}, rewardsService);
+
+		List<User> users = users(50);
+		CompletableFuture<Void> tracking = CompletableFuture.runAsync(() -> pipeline.trackAll(users));
+
+		// Un utilisateur par worker et QUEUE_CAPACITY par file entre les étapes : le reste attend la soumission
+		int inFlight = 4 + 3 * QUEUE_CAPACITY;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((fetched.get() < inFlight || pipeline.queueSize("fetch") < QUEUE_CAPACITY)
+				&& System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		TimeUnit.MILLISECONDS.sleep(200);
+		assertEquals(inFlight, fetched.get());
+		assertEquals(QUEUE_CAPACITY, pipeline.queueSize("rewards"));
+		assertFalse(tracking.isDone());
+
+		rewardCentralAvailable.countDown();
+		tracking.get(10, TimeUnit.SECONDS);
+		pipeline.shutdown();
+		rewardsService.shutdown();
+
+		assertEquals(50, fetched.get());
+		for (User user : users) {
+			assertEquals(1, user.getVisitedLocations().size());
+			assertEquals(10, user.getUserRewards().get(0).getRewardPoints());
+		}
+	}
+
+	@Test
+	public void failedUsersDoNotStopTheBatch() {
+		RewardsService rewardsService = new RewardsService(new GpsUtil(), new RewardCentral() {
+			@Override
+			public int getAttractionRewardPoints(UUID attractionId, UUID userId) {
+				return 1;
+			}
+		});
+		Attraction attraction = rewardsService.getAttractionCatalog().attractions().get(0);
+		List<User> users = users(10);
+		User failing = users.get(3);
+		TrackingPipeline pipeline = new TrackingPipeline(singleWorkerStages(), ExecutionMode.VIRTUAL, (user, tracked) -> {
+			if (user == failing) {
+				throw new IllegalStateException("GPS unavailable");
+			}
+			if (user == users.get(5)) {
+				throw new AssertionError("Unexpected vendor response");
+			}
+			return new VisitedLocation(user.getUserId(), attraction, new Date());
+		}, rewardsService);
+
+		CompletionException e = assertThrows(CompletionException.class, () -> pipeline.trackAll(users));
+		pipeline.shutdown();
+		rewardsService.shutdown();
+
+		assertEquals("GPS unavailable", e.getCause().getMessage());
+		assertEquals(0, failing.getVisitedLocations().size());
+		assertEquals(0, users.get(5).getVisitedLocations().size());
+		assertEquals(8, users.stream().filter(user -> user.getVisitedLocations().size() == 1).count());
+	}
+
+	@Test
+	public void shutdownFailsPendingBatch() throws Exception {
+		RewardsService rewardsService = new RewardsService(new GpsUtil(), new RewardCentral());
+		Attraction attraction = rewardsService.getAttractionCatalog().attractions().get(0);
+		CountDownLatch fetching = new CountDownLatch(1);
+		TrackingPipeline pipeline = new TrackingPipeline(singleWorkerStages(), ExecutionMode.PLATFORM, (user, tracked) -> {
+			fetching.countDown();
+			try {
+				TimeUnit.SECONDS.sleep(30);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("GPS call interrupted");
+			}
+			return new VisitedLocation(user.getUserId(), attraction, new Date());
+		}, rewardsService);
+
+		CompletableFuture<Void> tracking = CompletableFuture.runAsync(() -> pipeline.trackAll(users(3)));
+		assertTrue(fetching.await(5, TimeUnit.SECONDS));
+		pipeline.shutdown();
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> tracking.get(5, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof CancellationException);
+		assertThrows(RejectedExecutionException.class, () -> pipeline.trackAll(users(1)));
+		rewardsService.shutdown();
+	}
+}
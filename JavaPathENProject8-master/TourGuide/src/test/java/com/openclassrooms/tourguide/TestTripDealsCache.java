@@ -0,0 +1,136 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.cache.TripDealsCache;
+import com.openclassrooms.tourguide.helper.InternalTestHelper;
+import com.openclassrooms.tourguide.service.RewardsService;
+import com.openclassrooms.tourguide.service.TourGuideService;
+import com.openclassrooms.tourguide.user.User;
+
+import gpsUtil.GpsUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import rewardCentral.RewardCentral;
+import tripPricer.Provider;
+
+public class TestTripDealsCache {
+
+	private static List<Provider> deals(int version) {
+		return List.of(new Provider(UUID.randomUUID(), "provider-" + version, version));
+	}
+
+	@Test
+	public void staleDealsAreServedWhileRefreshing() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch refreshStarted = new CountDownLatch(1);
+		CountDownLatch releaseRefresh = new CountDownLatch(1);
+		TripDealsCache cache = new TripDealsCache(100, Duration.ofHours(1), Duration.ofMillis(50), executor, key -> {
+			int version = loads.incrementAndGet();
+			if (version > 1) {
+				refreshStarted.countDown();
+				try {
+					releaseRefresh.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return deals(version);
+		});
+		TripDealsCache.Key key = new TripDealsCache.Key(UUID.randomUUID(), 2, 1, 7, 300);
+
+		List<Provider> first = cache.get(key);
+		TimeUnit.MILLISECONDS.sleep(100);
+
+		assertSame(first, cache.get(key));
+		assertTrue(refreshStarted.await(5, TimeUnit.SECONDS));
+		assertSame(first, cache.getIfPresent(key));
+
+		releaseRefresh.countDown();
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (cache.getIfPresent(key) == first && System.nanoTime() < deadline) {
+			TimeUnit.MILLISECONDS.sleep(10);
+		}
+		executor.shutdown();
+
+		assertEquals("provider-2", cache.getIfPresent(key).get(0).name);
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	public void changedInputsInvalidateThePreviousEntry() {
+		AtomicInteger loads = new AtomicInteger();
+		TripDealsCache cache = new TripDealsCache(100, Duration.ofHours(1), Duration.ZERO, Runnable::run,
+				key -> deals(loads.incrementAndGet()));
+		UUID userId = UUID.randomUUID();
+		TripDealsCache.Key before = new TripDealsCache.Key(userId, 1, 0, 1, 100);
+		TripDealsCache.Key after = new TripDealsCache.Key(userId, 1, 0, 1, 200);
+
+		List<Provider> first = cache.get(before);
+		assertSame(first, cache.get(before));
+		cache.get(after);
+		cache.asCache().cleanUp();
+
+		assertEquals(1, cache.estimatedSize());
+		assertNotSame(first, cache.get(before));
+		assertEquals(3, loads.get());
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void asyncMissIsCountedOnce() throws Exception {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		tourGuideService.bindTo(registry);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		List<Provider> providers = tourGuideService.getTripDealsAsync(user).get();
+		assertEquals(1, tourGuideService.getTripDealsCache().getMissCount());
+		assertEquals(1, registry.get("tourguide.trip.deals").timer().count());
+
+		assertSame(providers, tourGuideService.getTripDealsAsync(user).get());
+		tourGuideService.tracker.stopTracking();
+
+		assertEquals(1, tourGuideService.getTripDealsCache().getMissCount());
+		assertEquals(1, tourGuideService.getTripDealsCache().getHitCount());
+		assertEquals(2, registry.get("tourguide.trip.deals").timer().count());
+	}
+
+	@Test
+	public void tripDealsFollowUserPreferences() throws Exception {
+		GpsUtil gpsUtil = new GpsUtil();
+		RewardsService rewardsService = new RewardsService(gpsUtil, new RewardCentral());
+		InternalTestHelper.setInternalUserNumber(0);
+		TourGuideService tourGuideService = new TourGuideService(gpsUtil, rewardsService);
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		List<Provider> providers = tourGuideService.getTripDeals(user);
+		assertSame(providers, tourGuideService.getTripDeals(user));
+		assertSame(providers, tourGuideService.getTripDealsAsync(user).get());
+
+		user.getUserPreferences().setNumberOfAdults(3);
+		List<Provider> repriced = tourGuideService.getTripDealsAsync(user).get();
+		tourGuideService.tracker.stopTracking();
+
+		assertNotSame(providers, repriced);
+		assertSame(repriced, user.getTripDeals());
+		assertEquals(1, tourGuideService.getTripDealsCache().estimatedSize());
+	}
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.tourguide;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.tourguide.user.User;
+import com.openclassrooms.tourguide.user.UserRegistry;
+
+public class TestUserRegistry {
+
+	@Test
+	public void lookupByNameAndId() {
+		UserRegistry registry = new UserRegistry();
+		User user = new User(UUID.randomUUID(), "jon", "000", "jon@tourGuide.com");
+
+		assertTrue(registry.add(user));
+		assertFalse(registry.add(new User(UUID.randomUUID(), "jon", "111", "jon2@tourGuide.com")));
+
+		assertSame(user, registry.getByName("jon"));
+		assertSame(user, registry.getById(user.getUserId()));
+		assertEquals(1, registry.size());
+	}
+
+	@Test
+	public void addsDuringIterationAreSafe() throws Exception {
+		UserRegistry registry = new UserRegistry();
+		for (int i = 0; i < 1000; i++) {
+			registry.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+		}
+
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+			for (int i = 1000; i < 11000; i++) {
+				registry.add(new User(UUID.randomUUID(), "user" + i, "000", "user" + i + "@tourGuide.com"));
+			}
+		});
+		AtomicInteger iterated = new AtomicInteger();
+		while (!writer.isDone()) {
+			registry.users().forEach(user -> iterated.incrementAndGet());
+		}
+		writer.get();
+
+		assertTrue(iterated.get() >= 1000);
+		assertEquals(11000, registry.size());
+		assertEquals(11000, registry.snapshot().size());
+	}
+}
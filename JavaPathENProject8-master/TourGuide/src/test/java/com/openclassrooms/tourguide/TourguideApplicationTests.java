@@ -1,13 +1,23 @@
 package com.openclassrooms.tourguide;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import com.openclassrooms.tourguide.service.RewardsService;
 
 @SpringBootTest
 class TourguideApplicationTests {
 
+	@Autowired
+	private ApplicationContext context;
+
 	@Test
 	void contextLoads() {
+		assertEquals(1, context.getBeansOfType(RewardsService.class).size());
 	}
 
 }